@@ -0,0 +1,124 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the CPU bound parts of the client on recorded responses: building process chains, parsing module
+ * parameters, catalog listings and process status documents.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParsingBenchmark {
+
+  private byte[] rasterLayers;
+
+  private byte[] status;
+
+  private JsonNode moduleDetails;
+
+  private List<Module> modules;
+
+  private List<Map<String, String>> values;
+
+  private ProcessChainTemplate template;
+
+  private ActiniaClient client;
+
+  @Setup
+  public void setup() throws IOException {
+    rasterLayers = fixture("raster_layers.json");
+    status = fixture("status_finished.json");
+    moduleDetails = JsonStreams.READER.readTree(fixture("module_details.json"));
+    client = new ActiniaClient("http://localhost/", "user", "password");
+    List<Parameter> inputs = new ArrayList<>();
+    for (JsonNode node : moduleDetails.get("parameters")) {
+      inputs.add(new Parameter(node));
+    }
+    List<Parameter> outputs = new ArrayList<>();
+    for (JsonNode node : moduleDetails.get("returns")) {
+      outputs.add(new Parameter(node));
+    }
+    Module module = new Module("r.slope.aspect", "", client);
+    module.setDetails(new ModuleDetails(inputs, outputs));
+    modules = List.of(module, module, module);
+    values = List.of(
+      Map.of("elevation", "elevation@PERMANENT", "slope", "slope", "aspect", "aspect"),
+      Map.of("elevation", "elevation_001@PERMANENT", "format", "percent", "slope", "slope_001"),
+      Map.of("elevation", "elevation_002@PERMANENT", "zscale", "0.3048", "nprocs", "4", "dx", "dx", "dy", "dy"));
+    List<Set<String>> names = new ArrayList<>();
+    values.forEach(map -> names.add(map.keySet()));
+    template = ProcessChainTemplate.compile(modules, names);
+  }
+
+  /**
+   * Load a recorded actinia response.
+   */
+  private static byte[] fixture(String name) throws IOException {
+    try (InputStream in = ParsingBenchmark.class.getResourceAsStream("/fixtures/" + name)) {
+      if (in == null) {
+        throw new IllegalArgumentException("Unknown fixture " + name);
+      }
+      return in.readAllBytes();
+    }
+  }
+
+  @Benchmark
+  public JsonNode createProcessChain() {
+    return client.createProcessChain(modules, values);
+  }
+
+  @Benchmark
+  public byte[] createProcessChainBytes() throws IOException {
+    return JsonStreams.MAPPER.writeValueAsBytes(client.createProcessChain(modules, values));
+  }
+
+  @Benchmark
+  public byte[] bindTemplate() {
+    return template.toJson(values);
+  }
+
+  @Benchmark
+  public void parseParameters(Blackhole blackhole) throws IOException {
+    for (JsonNode node : moduleDetails.get("parameters")) {
+      blackhole.consume(new Parameter(node));
+    }
+    for (JsonNode node : moduleDetails.get("returns")) {
+      blackhole.consume(new Parameter(node));
+    }
+  }
+
+  @Benchmark
+  public String parseRasterLayers(Blackhole blackhole) throws IOException {
+    return JsonStreams.forEachString(new ByteArrayInputStream(rasterLayers), "process_results", blackhole::consume);
+  }
+
+  @Benchmark
+  public StatusUpdate parseStatus() throws IOException {
+    return StatusUpdate.parse(new ByteArrayInputStream(status));
+  }
+
+}
@@ -0,0 +1,90 @@
+package de.terrestris.actinia;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end to end requests against the in-process actinia stub of the tests, including request building, the HTTP
+ * exchange and response parsing. Run with several threads (-t) to see how the client behaves under contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessBenchmark {
+
+  private ActiniaStub stub;
+
+  private ActiniaClient client;
+
+  private List<Module> modules;
+
+  private List<Map<String, String>> values;
+
+  private ProcessChainTemplate template;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    stub = new ActiniaStub(1, 1, 1000);
+    client = ActiniaClient.builder(stub.getUrl())
+      .credentials("user", "password")
+      .cachePolicy(CachePolicy.disabled())
+      .build();
+    modules = List.of(client.getModule("g.region"), client.getModule("r.slope.aspect"));
+    values = List.of(Map.of("raster", "elevation@PERMANENT"),
+      Map.of("elevation", "elevation@PERMANENT", "slope", "slope", "aspect", "aspect"));
+    template = ProcessChainTemplate.compile(modules, List.of(Set.of("raster"), Set.of("elevation", "slope", "aspect")));
+  }
+
+  @Setup(Level.Iteration)
+  public void clearJobs() {
+    // the stub keeps every submitted job
+    stub.clearJobs();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    stub.close();
+  }
+
+  @Benchmark
+  public ProcessStatus runProcess() {
+    return client.runProcess("location_0", "mapset_0", modules, values);
+  }
+
+  @Benchmark
+  public ProcessStatus runTemplate() {
+    return client.runProcess("location_0", "mapset_0", template, values);
+  }
+
+  @Benchmark
+  public ProcessStatus runAndPoll() {
+    ProcessStatus status = client.runProcess("location_0", "mapset_0", template, values);
+    status.update();
+    return status;
+  }
+
+  @Benchmark
+  public List<String> listRasterLayers() {
+    return client.getRasterLayers("location_0", "mapset_0");
+  }
+
+}
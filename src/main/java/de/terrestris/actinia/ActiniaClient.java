@@ -1,99 +1,303 @@
 package de.terrestris.actinia;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.log4j.Log4j2;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.Authenticator;
-import java.net.PasswordAuthentication;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Log4j2
 public class ActiniaClient {
 
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  private static final int DEFAULT_PREFETCH_CONCURRENCY = 8;
+
+  private static final Set<Integer> TRANSIENT_STATUS_CODES = Set.of(429, 502, 503, 504);
+
+  private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-\\d+/(\\d+)");
+
   private final String url;
 
   private final HttpClient client;
 
-  private final Map<String, Location> locations = new HashMap<>();
+  private final Executor executor;
+
+  private final String authorization;
+
+  private final Duration requestTimeout;
+
+  private final Map<ResourceType, Duration> requestTimeouts;
+
+  private final RetryPolicy retryPolicy;
 
-  private final Map<String, Module> modules = new HashMap<>();
+  private final RateLimiter rateLimiter;
+
+  private final CircuitBreaker circuitBreaker;
+
+  private final RequestListener listener;
+
+  private volatile boolean preemptiveAuthentication;
+
+  private final SingleFlight inFlight = new SingleFlight();
+
+  private volatile ResourceCache cache;
+
+  private final ResultCache resultCache;
 
   /**
    * Construct a new actinia client by providing an instance address, a username and a password.
    */
   public ActiniaClient(String url, String username, String password) {
-    this.url = url.endsWith("/") ? url : url + "/";
-    client = HttpClient.newBuilder().authenticator(new Authenticator() {
-      @Override
-      protected PasswordAuthentication getPasswordAuthentication() {
-        return new PasswordAuthentication(username, password.toCharArray());
-      }
-    }).build();
+    this(url, username, password, null);
+  }
+
+  /**
+   * Construct a new actinia client by providing an instance address, a username, a password and the executor used to
+   * run requests and parse responses. If the executor is null, the client uses its own pool of daemon threads.
+   */
+  public ActiniaClient(String url, String username, String password, Executor executor) {
+    this(builder(url).credentials(username, password).executor(executor));
+  }
+
+  /**
+   * Construct a new actinia client by providing an instance address and an API token, which is sent as bearer token
+   * with every request.
+   */
+  public ActiniaClient(String url, String token) {
+    this(builder(url).token(token));
+  }
+
+  private ActiniaClient(Builder builder) {
+    url = builder.url.endsWith("/") ? builder.url : builder.url + "/";
+    requestTimeout = builder.requestTimeout;
+    requestTimeouts = new EnumMap<>(builder.requestTimeouts);
+    retryPolicy = builder.retryPolicy;
+    rateLimiter = builder.rateLimiter;
+    circuitBreaker = builder.circuitBreaker;
+    listener = combine(List.copyOf(builder.listeners));
+    preemptiveAuthentication = builder.preemptiveAuthentication;
+    cache = new ResourceCache(builder.cachePolicy);
+    resultCache = builder.resultCache;
+    if (builder.token != null) {
+      authorization = "Bearer " + builder.token;
+    } else {
+      authorization = basicAuthorization(builder.username, builder.password);
+    }
+    if (builder.httpClient != null) {
+      client = builder.httpClient;
+      executor = builder.executor != null ? builder.executor : client.executor().orElseGet(ActiniaClient::createDefaultExecutor);
+      return;
+    }
+    executor = builder.executor == null ? createDefaultExecutor() : builder.executor;
+    HttpClient.Builder httpBuilder = HttpClient.newBuilder().executor(executor);
+    if (builder.version != null) {
+      httpBuilder.version(builder.version);
+    }
+    if (builder.connectTimeout != null) {
+      httpBuilder.connectTimeout(builder.connectTimeout);
+    }
+    client = httpBuilder.build();
+  }
+
+  /**
+   * Start configuring a client for the actinia instance at the given address.
+   */
+  public static Builder builder(String url) {
+    return new Builder(url);
+  }
+
+  private static String basicAuthorization(String username, String password) {
+    if (username == null || password == null) {
+      return null;
+    }
+    String credentials = username + ":" + password;
+    return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static ExecutorService createDefaultExecutor() {
+    return Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "actinia-client-" + THREAD_COUNTER.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Whether credentials are sent with every request (the default) or only after actinia answered with an
+   * authentication challenge, which costs an additional round trip. Bearer tokens are always sent.
+   */
+  public void setPreemptiveAuthentication(boolean preemptiveAuthentication) {
+    this.preemptiveAuthentication = preemptiveAuthentication;
+  }
+
+  public boolean isPreemptiveAuthentication() {
+    return preemptiveAuthentication;
+  }
+
+  /**
+   * Replace the cache policy. This drops everything cached so far.
+   */
+  public void setCachePolicy(CachePolicy policy) {
+    cache = new ResourceCache(policy);
+  }
+
+  public CachePolicy getCachePolicy() {
+    return cache.getPolicy();
+  }
+
+  /**
+   * Drop all cached catalog resources.
+   */
+  public void invalidateCache() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Drop all cached resources of the given type.
+   */
+  public void invalidateCache(ResourceType type) {
+    cache.invalidate(type);
+  }
+
+  /**
+   * Drop all cached resources of the given location, including its mapsets and their contents.
+   */
+  public void invalidateCache(String location) {
+    cache.invalidate(location, null);
+  }
+
+  /**
+   * Drop the cached contents of the given mapset and the cached mapset list of its location. This happens
+   * automatically when a process chain started by this client in that mapset is seen to be finished.
+   */
+  public void invalidateCache(String location, String mapset) {
+    cache.invalidate(location, mapset);
   }
 
   /**
    * Obtain the list of locations.
    */
   public List<Location> getLocations() {
-    HttpRequest request;
-    try {
-      request = HttpRequest.newBuilder(new URI(String.format("%slatest/locations", url))).build();
-      ObjectMapper mapper = new ObjectMapper();
-      HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-      JsonNode node = mapper.readTree(response.body());
-      if (!node.get("status").asText().equals("success")) {
+    return await(getLocationsAsync());
+  }
+
+  /**
+   * Obtain the list of locations without blocking the calling thread.
+   */
+  public CompletableFuture<List<Location>> getLocationsAsync() {
+    return getLocationMapAsync().thenApply(map -> new ArrayList<>(map.values()));
+  }
+
+  private CompletableFuture<Map<String, Location>> getLocationMapAsync() {
+    return cached(ResourceType.LOCATIONS, null, null, () -> shared(ResourceType.LOCATIONS, "latest/locations", "Unable to get locations.", in -> {
+      Map<String, Location> map = new LinkedHashMap<>();
+      String status = JsonStreams.forEachString(in, "projects", name -> map.put(name, new Location(name, this)));
+      if (!"success".equals(status)) {
         throw new ActiniaException("Getting the locations was unsuccessful.");
       }
-      node = node.get("projects");
-      if (node.isArray()) {
-        List<Location> list = new ArrayList<>();
-        for (JsonNode jsonNode : node) {
-          Location l;
-          list.add(l = new Location(jsonNode.asText(), this));
-          this.locations.put(l.getName(), l);
-        }
-        return list;
-      }
-      throw new ActiniaException("Location list was not a list.");
-    } catch (URISyntaxException | IOException | InterruptedException e) {
-      log.warn("Unable to get locations: {}", e.getMessage());
-      log.trace("Stack trace:", e);
-      throw new ActiniaException("Unable to get locations.", e);
-    }
+      return Collections.unmodifiableMap(map);
+    }));
   }
 
   /**
    * Obtain a list of mapsets included in the given location.
    */
   public List<Mapset> getMapsets(String location) {
-    Location l = locations.get(location);
-    HttpRequest request;
-    try {
-      request = HttpRequest.newBuilder(new URI(String.format("%slatest/locations/%s/mapsets", url, location))).build();
-      ObjectMapper mapper = new ObjectMapper();
-      HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-      JsonNode node = mapper.readTree(response.body());
-      node = node.get("process_results");
-      List<Mapset> mapsets = new ArrayList<>();
-      for (JsonNode n : node) {
-        mapsets.add(new Mapset(n.asText(), this, l));
-      }
-      return mapsets;
-    } catch (URISyntaxException | IOException | InterruptedException e) {
-      log.warn("Unable to get mapsets for {}: {}", location, e.getMessage());
-      log.trace("Stack trace:", e);
-      throw new ActiniaException("Unable to get mapsets for " + location, e);
-    }
+    return await(getMapsetsAsync(location));
+  }
+
+  /**
+   * Obtain a list of mapsets included in the given location without blocking the calling thread.
+   */
+  public CompletableFuture<List<Mapset>> getMapsetsAsync(String location) {
+    return getMapsetMapAsync(location).thenApply(map -> new ArrayList<>(map.values()));
+  }
+
+  /**
+   * Get a mapset of the given location by name.
+   */
+  public Mapset getMapset(String location, String name) {
+    return await(getMapsetMapAsync(location)).get(name);
+  }
+
+  /**
+   * Delete a mapset of the given location including all its maps.
+   */
+  public void deleteMapset(String location, String mapset) {
+    await(deleteMapsetAsync(location, mapset));
+  }
+
+  /**
+   * Delete a mapset of the given location including all its maps without blocking the calling thread. The cached
+   * catalog of the mapset is invalidated.
+   */
+  public CompletableFuture<Void> deleteMapsetAsync(String location, String mapset) {
+    return exchange(ResourceType.MAPSETS, "Unable to delete mapset " + mapset + " of " + location, () ->
+      newRequest(ResourceType.MAPSETS, new URI(String.format("%slatest/locations/%s/mapsets/%s", url, location, mapset)))
+        .DELETE()
+        .build(), (response, in) -> {
+      if (response.statusCode() != 200) {
+        throw new ActiniaException("actinia responded with status " + response.statusCode() + " when deleting mapset " + mapset);
+      }
+      cache.invalidate(location, mapset);
+      return null;
+    });
+  }
+
+  private CompletableFuture<Map<String, Mapset>> getMapsetMapAsync(String location) {
+    return cached(ResourceType.MAPSETS, location, null, () -> {
+      Map<String, Location> locations = cache.get(ResourceType.LOCATIONS, null, null);
+      Location l = locations == null ? null : locations.get(location);
+      Location parent = l == null ? new Location(location, this) : l;
+      return shared(ResourceType.MAPSETS, String.format("latest/locations/%s/mapsets", location), "Unable to get mapsets for " + location, in -> {
+          Map<String, Mapset> mapsets = new LinkedHashMap<>();
+          JsonStreams.forEachString(in, "process_results", name -> mapsets.put(name, new Mapset(name, this, parent)));
+          return Collections.unmodifiableMap(mapsets);
+        });
+    });
   }
 
   /**
@@ -107,27 +311,96 @@ public class ActiniaClient {
    * Obtain the list of rasters for a given location and a given mapset.
    */
   public List<String> getRasterLayers(String location, String mapset) {
-    HttpRequest request;
+    return await(getRasterLayersAsync(location, mapset));
+  }
+
+  /**
+   * Obtain the list of rasters for a given location and a given mapset without blocking the calling thread. The list
+   * is sorted alphabetically and backed by the cached {@link RasterLayerIndex}.
+   */
+  public CompletableFuture<List<String>> getRasterLayersAsync(String location, String mapset) {
+    return getRasterLayerIndexAsync(location, mapset).thenApply(RasterLayerIndex::asList);
+  }
+
+  /**
+   * Obtain a compact, searchable index of the rasters of a given location and a given mapset.
+   */
+  public RasterLayerIndex getRasterLayerIndex(String location, String mapset) {
+    return await(getRasterLayerIndexAsync(location, mapset));
+  }
+
+  /**
+   * Obtain a compact, searchable index of the rasters of a given location and a given mapset without blocking the
+   * calling thread. The index is cached by the client according to its cache policy.
+   */
+  public CompletableFuture<RasterLayerIndex> getRasterLayerIndexAsync(String location, String mapset) {
+    return cached(ResourceType.RASTER_LAYERS, location, mapset,
+      () -> shared(ResourceType.RASTER_LAYERS, rasterLayersPath(location, mapset),
+        "Unable to get raster layers for " + location + " and " + mapset,
+        in -> RasterLayerIndex.of(mapset, readProcessResults(in))));
+  }
+
+  /**
+   * Find the rasters of a given location and a given mapset matching a glob pattern such as 'lsat7_*_toar'.
+   */
+  public List<String> findRasterLayers(String location, String mapset, String pattern) {
+    return await(findRasterLayersAsync(location, mapset, pattern));
+  }
+
+  /**
+   * Find the rasters matching a glob pattern without blocking the calling thread. If the index of the mapset is
+   * cached it is searched, otherwise the pattern is passed to actinia, so only the matching names are transferred.
+   * The result is sorted alphabetically and not cached.
+   */
+  public CompletableFuture<List<String>> findRasterLayersAsync(String location, String mapset, String pattern) {
+    RasterLayerIndex index = cache.get(ResourceType.RASTER_LAYERS, location, mapset);
+    if (index != null) {
+      return CompletableFuture.completedFuture(index.glob(pattern).collect(Collectors.toUnmodifiableList()));
+    }
+    Pattern compiled;
     try {
-      request = HttpRequest.newBuilder(new URI(String.format("%slatest/locations/%s/mapsets/%s/raster_layers", url, location, mapset))).build();
-      ObjectMapper mapper = new ObjectMapper();
-      HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-      JsonNode node = mapper.readTree(response.body());
-      node = node.get("process_results");
-      List<String> layers = new ArrayList<>();
-      for (JsonNode n : node) {
-        layers.add(n.asText());
-      }
-      return layers;
-    } catch (URISyntaxException | IOException | InterruptedException e) {
-      log.warn("Unable to get raster layers for {} and {}: {}", location, mapset, e.getMessage());
-      log.trace("Stack trace:", e);
-      throw new ActiniaException("Unable to get raster layers for " + location + " and " + mapset, e);
+      compiled = RasterLayerIndex.compileGlob(pattern);
+    } catch (IllegalArgumentException e) {
+      return CompletableFuture.failedFuture(new ActiniaException("Invalid raster layer pattern " + pattern, e));
     }
+    String path = rasterLayersPath(location, mapset) + "?pattern=" + URLEncoder.encode(pattern, StandardCharsets.UTF_8);
+    return shared(ResourceType.RASTER_LAYERS, path, "Unable to find raster layers for " + location + " and " + mapset, in -> {
+      // actinia versions without pattern support return all layers
+      List<String> list = new ArrayList<>();
+      JsonStreams.forEachString(in, "process_results", name -> {
+        if (compiled.matcher(name).matches()) {
+          list.add(name);
+        }
+      });
+      Collections.sort(list);
+      return Collections.unmodifiableList(list);
+    });
+  }
+
+  private static String rasterLayersPath(String location, String mapset) {
+    return String.format("latest/locations/%s/mapsets/%s/raster_layers", location, mapset);
+  }
+
+  /**
+   * Pass the names of the rasters of a given location and a given mapset to the consumer as they are read, without
+   * building a list.
+   */
+  public void forEachRasterLayer(String location, String mapset, Consumer<String> consumer) {
+    await(forEachRasterLayerAsync(location, mapset, consumer));
+  }
+
+  /**
+   * Pass the names of the rasters of a given location and a given mapset to the consumer as they are read, without
+   * blocking the calling thread. The consumer is called on the client's executor.
+   */
+  public CompletableFuture<Void> forEachRasterLayerAsync(String location, String mapset, Consumer<String> consumer) {
+    return send(ResourceType.RASTER_LAYERS, "Unable to get raster layers for " + location + " and " + mapset,
+      () -> get(ResourceType.RASTER_LAYERS, rasterLayersPath(location, mapset)),
+      in -> forEachProcessResult(in, consumer));
   }
 
   /**
-   * Obtain the list of space time raster datasets for a given mapset.
+   * Obtain the space time raster datasets for a given mapset.
    */
   public List<String> getSpaceTimeRasterDatasets(Mapset mapset) {
     return getSpaceTimeRasterDatasets(mapset.getLocation().getName(), mapset.getName());
@@ -137,98 +410,298 @@ public class ActiniaClient {
    * Obtain the space time raster datasets for a given location and a given mapset.
    */
   public List<String> getSpaceTimeRasterDatasets(String location, String mapset) {
-    HttpRequest request;
-    try {
-      request = HttpRequest.newBuilder(new URI(String.format("%slatest/locations/%s/mapsets/%s/strds", url, location, mapset))).build();
-      ObjectMapper mapper = new ObjectMapper();
-      HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-      JsonNode node = mapper.readTree(response.body());
-      node = node.get("process_results");
-      List<String> datasets = new ArrayList<>();
-      for (JsonNode n : node) {
-        datasets.add(n.asText());
-      }
-      return datasets;
-    } catch (URISyntaxException | IOException | InterruptedException e) {
-      log.warn("Unable to get space time datasets for {} and {}: {}", location, mapset, e.getMessage());
-      log.trace("Stack trace:", e);
-      throw new ActiniaException("Unable to get space time datasets for " + location + " and " + mapset, e);
-    }
+    return await(getSpaceTimeRasterDatasetsAsync(location, mapset));
+  }
+
+  /**
+   * Obtain the space time raster datasets for a given location and a given mapset without blocking the calling
+   * thread.
+   */
+  public CompletableFuture<List<String>> getSpaceTimeRasterDatasetsAsync(String location, String mapset) {
+    return cached(ResourceType.STRDS, location, mapset,
+      () -> shared(ResourceType.STRDS, String.format("latest/locations/%s/mapsets/%s/strds", location, mapset),
+        "Unable to get space time datasets for " + location + " and " + mapset, ActiniaClient::readProcessResults));
+  }
+
+  /**
+   * Pass the names of the space time raster datasets of a given location and a given mapset to the consumer as they
+   * are read, without building a list.
+   */
+  public void forEachSpaceTimeRasterDataset(String location, String mapset, Consumer<String> consumer) {
+    await(forEachSpaceTimeRasterDatasetAsync(location, mapset, consumer));
+  }
+
+  /**
+   * Pass the names of the space time raster datasets of a given location and a given mapset to the consumer as they
+   * are read, without blocking the calling thread. The consumer is called on the client's executor.
+   */
+  public CompletableFuture<Void> forEachSpaceTimeRasterDatasetAsync(String location, String mapset, Consumer<String> consumer) {
+    return send(ResourceType.STRDS, "Unable to get space time datasets for " + location + " and " + mapset,
+      () -> get(ResourceType.STRDS, String.format("latest/locations/%s/mapsets/%s/strds", location, mapset)),
+      in -> forEachProcessResult(in, consumer));
+  }
+
+  private static Void forEachProcessResult(InputStream in, Consumer<String> consumer) throws IOException {
+    JsonStreams.forEachString(in, "process_results", consumer);
+    return null;
+  }
+
+  private static List<String> readProcessResults(InputStream in) throws IOException {
+    List<String> list = new ArrayList<>();
+    JsonStreams.forEachString(in, "process_results", list::add);
+    return Collections.unmodifiableList(list);
   }
 
   /**
    * Get a location by name.
    */
   public Location getLocation(String name) {
-    if (locations.size() == 0) {
-      getLocations();
-    }
-    return locations.get(name);
+    return await(getLocationMapAsync()).get(name);
   }
 
   /**
    * List the available modules.
    */
   public List<Module> getModules() {
-    if (!this.modules.isEmpty()) {
-      return new ArrayList<>(this.modules.values());
+    return await(getModulesAsync());
+  }
+
+  /**
+   * List the available modules without blocking the calling thread.
+   */
+  public CompletableFuture<List<Module>> getModulesAsync() {
+    return getModuleMapAsync().thenApply(map -> new ArrayList<>(map.values()));
+  }
+
+  private CompletableFuture<Map<String, Module>> getModuleMapAsync() {
+    return getModuleCatalogAsync().thenApply(ModuleCatalog::getModules);
+  }
+
+  private CompletableFuture<ModuleCatalog> getModuleCatalogAsync() {
+    return cached(ResourceType.MODULES, null, null,
+      () -> inFlight.execute(url + "latest/modules", () -> fetchModuleCatalog(null)));
+  }
+
+  /**
+   * Fetch the module list. If an ETag is given and actinia reports the list as not modified, the future completes
+   * with null.
+   */
+  private CompletableFuture<ModuleCatalog> fetchModuleCatalog(String etag) {
+    return exchange(ResourceType.MODULES, "Unable to get modules", () -> {
+      HttpRequest.Builder builder = newRequest(ResourceType.MODULES, new URI(url + "latest/modules"));
+      if (etag != null) {
+        builder.header("If-None-Match", etag);
+      }
+      return builder.build();
+    }, (response, in) -> {
+      if (response.statusCode() == 304) {
+        return null;
+      }
+      MessageDigest digest = sha256();
+      Map<String, Module> map = new LinkedHashMap<>();
+      String status = JsonStreams.forEachElement(new DigestInputStream(in, digest), "processes", parser -> {
+        Module module = parseModule(parser);
+        map.put(module.getName(), module);
+      });
+      if (!"success".equals(status)) {
+        throw new ActiniaException("Getting the modules was unsuccessful.");
+      }
+      String fingerprint = HexFormat.of().formatHex(digest.digest());
+      return new ModuleCatalog(map, response.headers().firstValue("ETag").orElse(null), fingerprint);
+    });
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available.", e);
+    }
+  }
+
+  /**
+   * Write the module list and the parameters of all modules loaded so far to a file, so another client can start
+   * without fetching them again. See {@link #importModuleCatalog(Path)}.
+   */
+  public void exportModuleCatalog(Path file) {
+    ModuleCatalog catalog = await(getModuleCatalogAsync());
+    try {
+      catalog.write(file, url);
+    } catch (IOException e) {
+      log.warn("Unable to export the module catalog to {}: {}", file, e.getMessage());
+      log.trace("Stack trace:", e);
+      throw new ActiniaException("Unable to export the module catalog to " + file, e);
     }
-    HttpRequest request;
+  }
+
+  /**
+   * Load the module list and the module parameters from a file written by {@link #exportModuleCatalog(Path)}. Returns
+   * false if the file does not exist or was written in another format or for another actinia instance. Use
+   * {@link #refreshModuleCatalogAsync(Path)} to bring an imported catalog up to date.
+   */
+  public boolean importModuleCatalog(Path file) {
+    ModuleCatalog catalog;
     try {
-      request = HttpRequest.newBuilder(new URI(String.format("%slatest/modules", url))).build();
-      ObjectMapper mapper = new ObjectMapper();
-      HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-      JsonNode node = mapper.readTree(response.body());
-      if (!node.get("status").asText().equals("success")) {
-        throw new ActiniaException("Getting the modules was unsuccessful.");
+      catalog = ModuleCatalog.read(file, url, this);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Unable to import the module catalog from {}: {}", file, e.getMessage());
+      log.trace("Stack trace:", e);
+      return false;
+    }
+    if (catalog == null) {
+      return false;
+    }
+    ResourceCache cache = this.cache;
+    cache.invalidate(ResourceType.MODULES);
+    cache.put(ResourceType.MODULES, null, null, catalog, cache.getGeneration());
+    return true;
+  }
+
+  /**
+   * Check whether the module list of actinia differs from the one stored in the file and if so, fetch it together with
+   * the parameters of all modules whose details were stored, use it for this client and rewrite the file. If it did
+   * not change, the stored catalog is used unless this client already has a module list. The future completes with
+   * true if the catalog changed.
+   */
+  public CompletableFuture<Boolean> refreshModuleCatalogAsync(Path file) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return ModuleCatalog.read(file, url, this);
+      } catch (IOException e) {
+        log.warn("Ignoring unreadable module catalog {}: {}", file, e.getMessage());
+        return null;
       }
-      node = node.get("processes");
-      for (JsonNode n : node) {
-        Module module = new Module(n.get("id").asText(), n.get("description").asText(), this);
-        this.modules.put(module.getName(), module);
+    }, executor).thenCompose(stored -> fetchModuleCatalog(stored == null ? null : stored.getEtag())
+      .thenCompose(catalog -> {
+        if (catalog == null || catalog.isSameVersion(stored)) {
+          ResourceCache cache = this.cache;
+          synchronized (cache) {
+            if (cache.get(ResourceType.MODULES, null, null) == null) {
+              cache.put(ResourceType.MODULES, null, null, stored, cache.getGeneration());
+            }
+          }
+          return CompletableFuture.completedFuture(false);
+        }
+        List<Module> detailed = new ArrayList<>();
+        for (Module module : catalog.getModules().values()) {
+          Module old = stored == null ? null : stored.getModules().get(module.getName());
+          if (old != null && old.hasDetails()) {
+            detailed.add(module);
+          }
+        }
+        return prefetchDetails(detailed, DEFAULT_PREFETCH_CONCURRENCY).thenApplyAsync(v -> {
+          ResourceCache cache = this.cache;
+          cache.invalidate(ResourceType.MODULES);
+          cache.put(ResourceType.MODULES, null, null, catalog, cache.getGeneration());
+          try {
+            catalog.write(file, url);
+          } catch (IOException e) {
+            throw new ActiniaException("Unable to write the module catalog to " + file, e);
+          }
+          return true;
+        }, executor);
+      }));
+  }
+
+  private Module parseModule(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      throw new ActiniaException("Module entry was not an object.");
+    }
+    String id = null;
+    String description = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      parser.nextToken();
+      if (field.equals("id")) {
+        id = parser.getValueAsString();
+      } else if (field.equals("description")) {
+        description = parser.getValueAsString();
+      } else {
+        parser.skipChildren();
       }
-      return new ArrayList<>(this.modules.values());
-    } catch (URISyntaxException | IOException | InterruptedException e) {
-      log.warn("Unable to get modules: {}", e.getMessage());
-      log.trace("Stack trace:", e);
-      throw new ActiniaException("Unable to get modules", e);
     }
+    return new Module(id, description, this);
   }
 
   /**
    * Get a module by name.
    */
   public Module getModule(String name) {
-    if (modules.isEmpty()) {
-      getModules();
-    }
-    return modules.get(name);
+    return await(getModuleMapAsync()).get(name);
   }
 
   /**
    * Updates the details within a module.
    */
   public void updateDetails(Module module) {
-    HttpRequest request;
-    try {
-      request = HttpRequest.newBuilder(new URI(String.format("%slatest/modules/%s", url, module.getName()))).build();
-      ObjectMapper mapper = new ObjectMapper();
-      HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-      JsonNode node = mapper.readTree(response.body());
-      JsonNode params = node.get("parameters");
-      for (JsonNode n : params) {
-        module.addInputParameter(new Parameter(n));
+    await(updateDetailsAsync(module));
+  }
+
+  /**
+   * Updates the details within a module without blocking the calling thread. The future completes with the updated
+   * module.
+   */
+  public CompletableFuture<Module> updateDetailsAsync(Module module) {
+    return shared(ResourceType.MODULE_DETAILS, String.format("latest/modules/%s", module.getName()), "Unable to update module details for " + module.getName(), in -> {
+      JsonNode node = JsonStreams.READER.readTree(in);
+      List<Parameter> inputs = new ArrayList<>();
+      for (JsonNode n : node.get("parameters")) {
+        inputs.add(new Parameter(n));
       }
-      JsonNode outputs = node.get("returns");
-      for (JsonNode n : outputs) {
-        module.addOutputParameter(new Parameter(n));
+      List<Parameter> outputs = new ArrayList<>();
+      for (JsonNode n : node.get("returns")) {
+        outputs.add(new Parameter(n));
       }
+      return new ModuleDetails(inputs, outputs);
+    }).thenApply(details -> {
+      module.loadDetails(details);
+      return module;
+    });
+  }
 
-    } catch (URISyntaxException | IOException | InterruptedException e) {
-      log.warn("Unable to update module details for {}: {}", module.getName(), e.getMessage());
-      log.trace("Stack trace:", e);
-      throw new ActiniaException("Unable to update module details for " + module.getName(), e);
-    }
+  /**
+   * Load the parameters of all modules concurrently, so they are available without further requests.
+   */
+  public void prefetchModuleDetails() {
+    await(prefetchModuleDetailsAsync(null, DEFAULT_PREFETCH_CONCURRENCY));
+  }
+
+  /**
+   * Load the parameters of the named modules concurrently, so they are available without further requests.
+   */
+  public void prefetchModuleDetails(Collection<String> names) {
+    await(prefetchModuleDetailsAsync(names, DEFAULT_PREFETCH_CONCURRENCY));
+  }
+
+  /**
+   * Load the parameters of the named modules or all modules if names is null, running at most the given number of
+   * requests at once. Modules whose parameters are already loaded are skipped. The future fails if a module is
+   * unknown or its parameters could not be loaded.
+   */
+  public CompletableFuture<Void> prefetchModuleDetailsAsync(Collection<String> names, int concurrency) {
+    return getModuleMapAsync().thenCompose(map -> {
+      List<Module> list = new ArrayList<>();
+      if (names == null) {
+        list.addAll(map.values());
+      } else {
+        for (String name : names) {
+          Module module = map.get(name);
+          if (module == null) {
+            throw new ActiniaException("Unknown module " + name);
+          }
+          list.add(module);
+        }
+      }
+      return prefetchDetails(list, concurrency);
+    });
+  }
+
+  private CompletableFuture<Void> prefetchDetails(Collection<Module> modules, int concurrency) {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(concurrency);
+    return CompletableFuture.allOf(modules.stream()
+      .filter(module -> !module.hasDetails())
+      .map(module -> limiter.submit(() -> updateDetailsAsync(module)))
+      .toArray(CompletableFuture[]::new));
   }
 
   private void appendParameter(Parameter param, Map<String, String> values, ObjectMapper mapper, ArrayNode params) {
@@ -244,7 +717,14 @@ public class ActiniaClient {
    * Creates a process chain to be executed.
    */
   public JsonNode createProcessChain(List<Module> modules, List<Map<String, String>> parameters) {
-    ObjectMapper mapper = new ObjectMapper();
+    return createProcessChain(modules, parameters, null);
+  }
+
+  /**
+   * Creates a process chain to be executed, asking actinia to call the given webhooks if they are not null.
+   */
+  public JsonNode createProcessChain(List<Module> modules, List<Map<String, String>> parameters, Webhooks webhooks) {
+    ObjectMapper mapper = JsonStreams.MAPPER;
     ObjectNode root = mapper.createObjectNode();
     ArrayNode list = mapper.createArrayNode();
     root.set("list", list);
@@ -265,6 +745,13 @@ public class ActiniaClient {
         appendParameter(param, values, mapper, params);
       }
     }
+    if (webhooks != null) {
+      ObjectNode hooks = root.putObject("webhooks");
+      if (webhooks.getUpdate() != null) {
+        hooks.put("update", webhooks.getUpdate());
+      }
+      hooks.put("finished", webhooks.getFinished());
+    }
     return root;
   }
 
@@ -272,41 +759,1002 @@ public class ActiniaClient {
    * Execute a process chain.
    */
   public ProcessStatus runProcess(String location, String mapset, List<Module> modules, List<Map<String, String>> parameters) {
-    HttpRequest request;
-    try {
-      ObjectMapper mapper = new ObjectMapper();
-      JsonNode root = createProcessChain(modules, parameters);
-      request = HttpRequest.newBuilder(new URI(String.format("%slatest/locations/%s/mapsets/%s/processing", url, location, mapset)))
-        .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(root)))
-        .header("Content-Type", "application/json")
-        .build();
-      HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-      JsonNode node = mapper.readTree(response.body());
-      return new ProcessStatus(node.get("urls").get("status").asText(), this);
-    } catch (URISyntaxException | IOException | InterruptedException e) {
-      log.warn("Unable to run proess chain for location {} and mapset {}: {}", location, mapset, e.getMessage());
-      log.trace("Stack trace:", e);
-      throw new ActiniaException("Unable to run process chain for location " + location + " and mapset " + mapset, e);
-    }
+    return await(runProcessAsync(location, mapset, modules, parameters));
   }
 
   /**
-   * Update the process status.
+   * Execute a process chain without blocking the calling thread. Note that module details which have not been loaded
+   * yet are fetched before the future is returned.
    */
-  public void updateStatus(ProcessStatus status) {
-    HttpRequest request;
-    try {
-      request = HttpRequest.newBuilder(new URI(status.getUrl())).build();
-      ObjectMapper mapper = new ObjectMapper();
-      HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-      JsonNode node = mapper.readTree(response.body());
-      String statusText = node.get("status").asText();
-      status.setStatus(statusText);
-    } catch (URISyntaxException | IOException | InterruptedException e) {
-      log.warn("Unable to fetch process status: {}", e.getMessage());
-      log.trace("Stack trace:", e);
-      throw new ActiniaException("Unable to fetch process status", e);
-    }
+  public CompletableFuture<ProcessStatus> runProcessAsync(String location, String mapset, List<Module> modules, List<Map<String, String>> parameters) {
+    return runProcessAsync(location, mapset, modules, parameters, null);
+  }
+
+  /**
+   * Execute a process chain, asking actinia to call the given webhooks, see {@link WebhookReceiver}.
+   */
+  public ProcessStatus runProcess(String location, String mapset, List<Module> modules, List<Map<String, String>> parameters, Webhooks webhooks) {
+    return await(runProcessAsync(location, mapset, modules, parameters, webhooks));
+  }
+
+  /**
+   * Execute a process chain without blocking the calling thread, asking actinia to call the given webhooks if they
+   * are not null.
+   */
+  public CompletableFuture<ProcessStatus> runProcessAsync(String location, String mapset, List<Module> modules, List<Map<String, String>> parameters, Webhooks webhooks) {
+    return submitChain(location, mapset, () -> {
+      List<Set<String>> names = new ArrayList<>();
+      parameters.forEach(values -> names.add(values.keySet()));
+      return ProcessChainTemplate.compile(modules, names, false).toJson(parameters, webhooks);
+    });
+  }
+
+  /**
+   * Execute a precompiled process chain with the given values, one map per module.
+   */
+  public ProcessStatus runProcess(String location, String mapset, ProcessChainTemplate template, List<Map<String, String>> values) {
+    return await(runProcessAsync(location, mapset, template, values));
+  }
+
+  /**
+   * Execute a precompiled process chain with the given values without blocking the calling thread.
+   */
+  public CompletableFuture<ProcessStatus> runProcessAsync(String location, String mapset, ProcessChainTemplate template, List<Map<String, String>> values) {
+    return runProcessAsync(location, mapset, template, values, null);
+  }
+
+  /**
+   * Execute a precompiled process chain, asking actinia to call the given webhooks, see {@link WebhookReceiver}.
+   */
+  public ProcessStatus runProcess(String location, String mapset, ProcessChainTemplate template, List<Map<String, String>> values, Webhooks webhooks) {
+    return await(runProcessAsync(location, mapset, template, values, webhooks));
+  }
+
+  /**
+   * Execute a precompiled process chain without blocking the calling thread, asking actinia to call the given
+   * webhooks if they are not null.
+   */
+  public CompletableFuture<ProcessStatus> runProcessAsync(String location, String mapset, ProcessChainTemplate template, List<Map<String, String>> values, Webhooks webhooks) {
+    return submitChain(location, mapset, () -> template.toJson(values, webhooks));
+  }
+
+  /**
+   * Execute a process chain in an ephemeral mapset, see
+   * {@link #runEphemeralProcessAsync(String, ProcessChainTemplate, List, List, Webhooks)}.
+   */
+  public ProcessStatus runEphemeralProcess(String location, List<Module> modules, List<Map<String, String>> parameters, List<Map<String, Export>> exports) {
+    return await(runEphemeralProcessAsync(location, modules, parameters, exports));
+  }
+
+  /**
+   * Execute a process chain in an ephemeral mapset without blocking the calling thread, see
+   * {@link #runEphemeralProcessAsync(String, ProcessChainTemplate, List, List, Webhooks)}.
+   */
+  public CompletableFuture<ProcessStatus> runEphemeralProcessAsync(String location, List<Module> modules, List<Map<String, String>> parameters, List<Map<String, Export>> exports) {
+    return submitChain("processing_async_export", location, null, () -> {
+      List<Set<String>> names = new ArrayList<>();
+      parameters.forEach(values -> names.add(values.keySet()));
+      return ProcessChainTemplate.compile(modules, names, false).toJson(parameters, exports, null);
+    });
+  }
+
+  /**
+   * Execute a precompiled process chain in an ephemeral mapset, see
+   * {@link #runEphemeralProcessAsync(String, ProcessChainTemplate, List, List, Webhooks)}.
+   */
+  public ProcessStatus runEphemeralProcess(String location, ProcessChainTemplate template, List<Map<String, String>> values, List<Map<String, Export>> exports, Webhooks webhooks) {
+    return await(runEphemeralProcessAsync(location, template, values, exports, webhooks));
+  }
+
+  /**
+   * Execute a precompiled process chain in an ephemeral mapset without blocking the calling thread. actinia creates a
+   * temporary mapset for the process and deletes it afterwards, so unlike {@link #runProcess(String, String, List, List)}
+   * no mapset is locked and any number of chains can run at once in the same location. The outputs are exported as
+   * given by one map per module from output parameter names to exports, see {@link Export#defaults(List, List)}, and
+   * listed in {@link ProcessStatus#getResources()} once the process has finished. Webhooks may be null.
+   */
+  public CompletableFuture<ProcessStatus> runEphemeralProcessAsync(String location, ProcessChainTemplate template, List<Map<String, String>> values, List<Map<String, Export>> exports, Webhooks webhooks) {
+    return submitChain("processing_async_export", location, null, () -> template.toJson(values, exports, webhooks));
+  }
+
+  private CompletableFuture<ProcessStatus> submitChain(String location, String mapset, Supplier<byte[]> chain) {
+    return submitChain("mapsets/" + mapset + "/processing", location, mapset, chain);
+  }
+
+  /**
+   * Submit a chain to the given endpoint of the location, returning the remembered result instead if a result cache is
+   * configured and knows the chain.
+   */
+  private CompletableFuture<ProcessStatus> submitChain(String endpoint, String location, String mapset, Supplier<byte[]> chain) {
+    if (resultCache == null) {
+      return submitChain(endpoint, location, mapset, chain, null);
+    }
+    return CompletableFuture.supplyAsync(chain, executor).thenCompose(bytes -> {
+      String key = ResultCache.key(url, location, mapset, bytes);
+      ProcessStatus cached = resultCache.get(key, this, location, mapset);
+      if (cached != null) {
+        log.debug("Reusing the result of {} for an identical process chain", cached.getUrl());
+        return CompletableFuture.completedFuture(cached);
+      }
+      return submitChain(endpoint, location, mapset, () -> bytes, key);
+    });
+  }
+
+  private CompletableFuture<ProcessStatus> submitChain(String endpoint, String location, String mapset, Supplier<byte[]> chain, String resultKey) {
+    String target = mapset == null ? "location " + location : "location " + location + " and mapset " + mapset;
+    return send(ResourceType.PROCESSING, "Unable to run process chain for " + target, () ->
+      newRequest(ResourceType.PROCESSING, new URI(String.format("%slatest/locations/%s/%s", url, location, endpoint)))
+        .POST(HttpRequest.BodyPublishers.ofByteArray(chain.get()))
+        .header("Content-Type", "application/json")
+        .build(), in -> {
+      StatusUpdate update = StatusUpdate.parse(in);
+      if (update.getStatusUrl() == null) {
+        throw new ActiniaException("Process chain was not accepted: " + update.getMessage());
+      }
+      ProcessStatus status = new ProcessStatus(update.getStatusUrl(), this, location, mapset);
+      status.setResultKey(resultKey);
+      apply(status, update);
+      return status;
+    });
+  }
+
+  /**
+   * Update the process status.
+   */
+  public void updateStatus(ProcessStatus status) {
+    await(updateStatusAsync(status));
+  }
+
+  /**
+   * Update the process status without blocking the calling thread. The future completes with the updated status.
+   * Only the status, message, progress and timestamps are read from the status document.
+   */
+  public CompletableFuture<ProcessStatus> updateStatusAsync(ProcessStatus status) {
+    return send(ResourceType.STATUS, "Unable to fetch process status", () -> newRequest(ResourceType.STATUS, new URI(status.getUrl())).build(), in -> {
+      StatusUpdate update = StatusUpdate.parse(in);
+      if (update.getStatus() == null) {
+        throw new ActiniaException("Status response did not contain a status.");
+      }
+      apply(status, update);
+      return status;
+    });
+  }
+
+  /**
+   * Apply a status update, e.g. one received by a webhook, invalidating the cached catalog of the mapset once the
+   * process has finished.
+   */
+  void apply(ProcessStatus status, StatusUpdate update) {
+    boolean finished = status.apply(update);
+    // ephemeral processes do not change the catalog
+    if (finished && status.getMapset() != null) {
+      cache.invalidate(status.getLocation(), status.getMapset());
+    }
+    if (finished && status.getResultKey() != null && resultCache != null) {
+      resultCache.put(status.getResultKey(), status);
+    }
+  }
+
+  /**
+   * Download all results of a finished process into the given directory, see
+   * {@link #downloadResourcesAsync(ProcessStatus, Path, int)}.
+   */
+  public List<Path> downloadResources(ProcessStatus status, Path directory) {
+    return await(downloadResourcesAsync(status, directory, DEFAULT_PREFETCH_CONCURRENCY));
+  }
+
+  /**
+   * Download all results of a finished process into the given directory, running at most the given number of
+   * downloads at once. The files are named after the last segment of their URL, downloads this client left
+   * unfinished are resumed. Resources whose names collide are rejected. The future completes with the files in the
+   * order of {@link ProcessStatus#getResources()}.
+   */
+  public CompletableFuture<List<Path>> downloadResourcesAsync(ProcessStatus status, Path directory, int concurrency) {
+    List<String> resources = status.getResources();
+    List<Path> targets = new ArrayList<>();
+    Map<Path, String> seen = new HashMap<>();
+    for (String resource : resources) {
+      String name = resource.substring(resource.lastIndexOf('/') + 1);
+      Path target = directory.resolve(name).normalize();
+      if (name.isEmpty() || !directory.normalize().equals(target.getParent())) {
+        return CompletableFuture.failedFuture(new ActiniaException("Invalid resource name in " + resource));
+      }
+      String previous = seen.put(target, resource);
+      if (previous != null) {
+        return CompletableFuture.failedFuture(new ActiniaException("The resources " + previous + " and " + resource
+          + " would both be saved as " + target));
+      }
+      targets.add(target);
+    }
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(concurrency);
+    List<CompletableFuture<Path>> downloads = new ArrayList<>();
+    for (int i = 0; i < resources.size(); ++i) {
+      String resource = resources.get(i);
+      Path target = targets.get(i);
+      downloads.add(limiter.submit(() -> downloadResourceAsync(resource, target)));
+    }
+    return CompletableFuture.allOf(downloads.toArray(new CompletableFuture[0]))
+      .thenApply(v -> downloads.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+  }
+
+  /**
+   * Download a result of a process to a file, see {@link #downloadResourceAsync(String, Path)}.
+   */
+  public Path downloadResource(String resourceUrl, Path target) {
+    return await(downloadResourceAsync(resourceUrl, target));
+  }
+
+  /**
+   * Download a result of a process to a file without blocking the calling thread. The response is streamed to a
+   * '.part' file next to the target without holding it in memory, which replaces the target once it is complete. If
+   * an earlier download by this client left a part file together with the resource's ETag or modification date, it is
+   * resumed with an HTTP range request that only applies if the resource did not change. Interrupted transfers are
+   * resumed in the same way up to the maximum attempts of the retry policy. The future fails right away if the
+   * target is already being downloaded.
+   */
+  public CompletableFuture<Path> downloadResourceAsync(String resourceUrl, Path target) {
+    PartFile part;
+    try {
+      part = PartFile.open(target);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(new ActiniaException("Unable to open " + target, e));
+    }
+    return download(resourceUrl, part, 1).handle((v, throwable) -> {
+      try {
+        part.close();
+        if (throwable == null) {
+          part.complete();
+        }
+      } catch (IOException e) {
+        if (throwable == null) {
+          throw new CompletionException(new ActiniaException("Unable to move the download to " + target, e));
+        }
+        log.debug("Unable to close {}: {}", target, e.getMessage());
+      } finally {
+        part.release();
+      }
+      if (throwable != null) {
+        throw new CompletionException(unwrap(throwable));
+      }
+      return target;
+    });
+  }
+
+  /**
+   * Download a result of a process, see {@link #downloadResourceAsync(String, WritableByteChannel)}.
+   */
+  public long downloadResource(String resourceUrl, WritableByteChannel channel) {
+    return await(downloadResourceAsync(resourceUrl, channel));
+  }
+
+  /**
+   * Stream a result of a process to the given channel without blocking the calling thread. The channel is not closed.
+   * The future completes with the number of bytes written. As the channel can not be rewound, interrupted transfers
+   * are not resumed.
+   */
+  public CompletableFuture<Long> downloadResourceAsync(String resourceUrl, WritableByteChannel channel) {
+    return exchange(ResourceType.RESOURCE, "Unable to download " + resourceUrl,
+      () -> newRequest(ResourceType.RESOURCE, new URI(resourceUrl)).build(), (response, in) -> {
+        if (response.statusCode() != 200) {
+          throw new ActiniaException("actinia responded with status " + response.statusCode() + " to " + resourceUrl);
+        }
+        return in.transferTo(Channels.newOutputStream(channel));
+      });
+  }
+
+  /**
+   * Download into a part file, requesting the range after the bytes it already contains if it has a validator.
+   * Transfers failing after some bytes arrived are resumed, a part file of a changed resource is started over.
+   */
+  private CompletableFuture<Void> download(String resourceUrl, PartFile part, int attempt) {
+    long offset;
+    try {
+      offset = part.validator == null ? 0 : part.channel.size();
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(new ActiniaException("Unable to download " + resourceUrl, e));
+    }
+    String validator = part.validator;
+    return exchange(ResourceType.RESOURCE, "Unable to download " + resourceUrl, () -> {
+      HttpRequest.Builder builder = newRequest(ResourceType.RESOURCE, new URI(resourceUrl));
+      if (offset > 0) {
+        builder.header("Range", "bytes=" + offset + "-");
+        builder.header("If-Range", validator);
+      }
+      return builder.build();
+    }, (response, in) -> {
+      int statusCode = response.statusCode();
+      String range = response.headers().firstValue("Content-Range").orElse("");
+      if (statusCode == 416 && offset > 0) {
+        if (range.equals("bytes */" + offset)) {
+          // the part file is already complete
+          return true;
+        }
+        log.debug("Discarding the partial download of {} not matching {}", resourceUrl, range);
+        part.reset(null);
+        return false;
+      }
+      if (statusCode == 206 && offset > 0) {
+        Matcher matcher = CONTENT_RANGE.matcher(range);
+        if (!matcher.matches() || Long.parseLong(matcher.group(1)) != offset) {
+          throw new ActiniaException("Unexpected range " + range + " when resuming " + resourceUrl);
+        }
+        part.channel.position(offset);
+        in.transferTo(Channels.newOutputStream(part.channel));
+        part.checkSize(resourceUrl, Long.parseLong(matcher.group(2)));
+        return true;
+      }
+      if (statusCode != 200) {
+        throw new ActiniaException("actinia responded with status " + statusCode + " to " + resourceUrl);
+      }
+      part.reset(validator(response));
+      in.transferTo(Channels.newOutputStream(part.channel));
+      OptionalLong length = response.headers().firstValueAsLong("Content-Length");
+      if (length.isPresent()) {
+        part.checkSize(resourceUrl, length.getAsLong());
+      }
+      return true;
+    }).handle((complete, throwable) -> {
+      if (throwable == null) {
+        return complete ? CompletableFuture.<Void>completedFuture(null) : download(resourceUrl, part, attempt + 1);
+      }
+      Throwable cause = unwrap(throwable);
+      long size = offset;
+      try {
+        size = part.channel.size();
+      } catch (IOException e) {
+        log.trace("Unable to determine the downloaded size.", e);
+      }
+      if (cause.getCause() instanceof IOException && part.validator != null && size > offset
+        && attempt < retryPolicy.getMaximumAttempts()) {
+        log.debug("Resuming download of {} at byte {}: {}", resourceUrl, size, cause.getMessage());
+        return download(resourceUrl, part, attempt + 1);
+      }
+      return CompletableFuture.<Void>failedFuture(cause);
+    }).thenCompose(Function.identity());
+  }
+
+  /**
+   * The validator a range request for the rest of the response may be conditioned on: a strong ETag, or else the
+   * modification date. Returns null if the response has neither.
+   */
+  private static String validator(HttpResponse<?> response) {
+    Optional<String> etag = response.headers().firstValue("ETag");
+    if (etag.isPresent() && !etag.get().startsWith("W/")) {
+      return etag.get();
+    }
+    return response.headers().firstValue("Last-Modified").orElse(null);
+  }
+
+  /**
+   * Return the cached value or load it. Values loaded while the cache is invalidated are not cached.
+   */
+  private <T> CompletableFuture<T> cached(ResourceType type, String location, String mapset, Supplier<CompletableFuture<T>> loader) {
+    ResourceCache cache = this.cache;
+    T value = cache.get(type, location, mapset);
+    if (value != null) {
+      return CompletableFuture.completedFuture(value);
+    }
+    long generation = cache.getGeneration();
+    return loader.get().thenApply(result -> {
+      cache.put(type, location, mapset, result, generation);
+      return result;
+    });
+  }
+
+  /**
+   * Send a GET request for the given path, sharing the request and its parsed result with concurrent callers asking
+   * for the same resource.
+   */
+  private <T> CompletableFuture<T> shared(ResourceType type, String path, String errorMessage, ResponseParser<T> parser) {
+    return inFlight.execute(url + path, () -> send(type, errorMessage, () -> get(type, path), parser));
+  }
+
+  private HttpRequest get(ResourceType type, String path) throws URISyntaxException {
+    return newRequest(type, new URI(url + path)).build();
+  }
+
+  /**
+   * Start building a request, adding the configured timeout for the resource type and the Authorization header unless
+   * authentication is left to challenges.
+   */
+  private HttpRequest.Builder newRequest(ResourceType type, URI uri) {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+    Duration timeout = requestTimeouts.getOrDefault(type, requestTimeout);
+    if (timeout != null) {
+      builder.timeout(timeout);
+    }
+    if (authorization != null && (preemptiveAuthentication || authorization.startsWith("Bearer "))) {
+      builder.header("Authorization", authorization);
+    }
+    return builder;
+  }
+
+  /**
+   * Creates a request, sends it asynchronously and parses the response body on the client's executor. Failures are
+   * logged and reported as ActiniaException using the given message.
+   */
+  private <T> CompletableFuture<T> send(ResourceType type, String errorMessage, RequestFactory factory, ResponseParser<T> parser) {
+    return exchange(type, errorMessage, factory, (response, in) -> parser.parse(in));
+  }
+
+  /**
+   * Like send, but gives the handler access to the response status and headers.
+   */
+  private <T> CompletableFuture<T> exchange(ResourceType type, String errorMessage, RequestFactory factory, ResponseHandler<T> handler) {
+    RequestTrace trace = new RequestTrace(type);
+    notifyListener(() -> listener.requestStarted(type));
+    CompletableFuture<T> future;
+    try {
+      HttpRequest request = factory.create();
+      future = attempt(type, request, handler, trace);
+    } catch (URISyntaxException | IOException | RuntimeException e) {
+      future = CompletableFuture.failedFuture(e);
+    }
+    return future.handle((result, throwable) -> {
+      if (throwable == null) {
+        completed(trace, null);
+        return result;
+      }
+      Throwable cause = unwrap(throwable);
+      if (cause instanceof ActiniaException) {
+        completed(trace, (ActiniaException) cause);
+        throw (ActiniaException) cause;
+      }
+      if (cause instanceof Error) {
+        completed(trace, new ActiniaException(errorMessage));
+        throw (Error) cause;
+      }
+      log.warn("{} ({})", errorMessage, cause.getMessage());
+      log.trace("Stack trace:", cause);
+      ActiniaException failure = new ActiniaException(errorMessage, (Exception) cause);
+      completed(trace, failure);
+      throw failure;
+    });
+  }
+
+  private static RequestListener combine(List<RequestListener> listeners) {
+    if (listeners.size() == 1) {
+      return listeners.get(0);
+    }
+    return new RequestListener() {
+      @Override
+      public void requestStarted(ResourceType type) {
+        listeners.forEach(listener -> listener.requestStarted(type));
+      }
+
+      @Override
+      public void requestRetried(ResourceType type, int attempt, Throwable cause) {
+        listeners.forEach(listener -> listener.requestRetried(type, attempt, cause));
+      }
+
+      @Override
+      public void requestCompleted(RequestEvent event) {
+        listeners.forEach(listener -> listener.requestCompleted(event));
+      }
+    };
+  }
+
+  private void completed(RequestTrace trace, ActiniaException failure) {
+    RequestEvent event = new RequestEvent(trace.type, trace.statusCode, trace.attempts, trace.bytes, trace.responseNanos,
+      trace.parseNanos, System.nanoTime() - trace.start, failure);
+    notifyListener(() -> listener.requestCompleted(event));
+  }
+
+  private void notifyListener(Runnable notification) {
+    try {
+      notification.run();
+    } catch (RuntimeException e) {
+      log.warn("Request listener failed: {}", e.getMessage());
+      log.trace("Stack trace:", e);
+    }
+  }
+
+  /**
+   * Send a request once the circuit breaker and the rate limiter allow it, retrying idempotent requests after
+   * transient failures according to the retry policy. Server errors and failed connections count as failures of the
+   * circuit breaker, even those that are not retried.
+   */
+  private <T> CompletableFuture<T> attempt(ResourceType type, HttpRequest request, ResponseHandler<T> handler, RequestTrace trace) {
+    if (circuitBreaker != null && !circuitBreaker.allowRequest()) {
+      return CompletableFuture.failedFuture(new ActiniaException("The circuit breaker is open, actinia seems to be unavailable."));
+    }
+    long delay = rateLimiter == null ? 0 : rateLimiter.reserve();
+    CompletableFuture<HttpResponse<InputStream>> response;
+    if (delay > 0) {
+      response = CompletableFuture.runAsync(() -> {
+      }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor))
+        .thenCompose(v -> sendAttempt(request, trace));
+    } else {
+      response = sendAttempt(request, trace);
+    }
+    response = response.thenCompose(r -> challenged(request, r) ? authorize(request, r) : CompletableFuture.completedFuture(r));
+    AtomicBoolean handling = new AtomicBoolean();
+    CompletableFuture<T> future = response.thenApplyAsync(r -> {
+      trace.statusCode = r.statusCode();
+      trace.responseNanos = System.nanoTime() - trace.sent;
+      CountingInputStream counting = new CountingInputStream(r.body());
+      try (InputStream in = counting) {
+        if (TRANSIENT_STATUS_CODES.contains(r.statusCode())) {
+          throw new TransientStatusException(r.statusCode());
+        }
+        if (circuitBreaker != null) {
+          if (r.statusCode() >= 500) {
+            circuitBreaker.onFailure();
+          } else {
+            circuitBreaker.onSuccess();
+          }
+        }
+        handling.set(true);
+        long parseStart = System.nanoTime();
+        try {
+          return handler.handle(r, in);
+        } finally {
+          trace.parseNanos = System.nanoTime() - parseStart;
+        }
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      } finally {
+        trace.bytes = counting.getCount();
+      }
+    }, executor);
+    return future.handle((result, throwable) -> {
+      if (throwable == null) {
+        return CompletableFuture.completedFuture(result);
+      }
+      Throwable cause = unwrap(throwable);
+      // failures while handling the body are not retried, the handler may already have passed on parts of it, nor
+      // counted by the circuit breaker, as they may come from writing the body locally
+      boolean transientFailure = cause instanceof IOException && !handling.get();
+      if (transientFailure && circuitBreaker != null) {
+        circuitBreaker.onFailure();
+      }
+      int attempt = trace.attempts;
+      if (transientFailure && type != ResourceType.PROCESSING && attempt < retryPolicy.getMaximumAttempts()) {
+        long backoff = retryPolicy.backoffMillis(attempt);
+        log.debug("Retrying {} in {}ms after attempt {} failed: {}", request.uri(), backoff, attempt, cause.getMessage());
+        notifyListener(() -> listener.requestRetried(type, attempt, cause));
+        return CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS, executor))
+          .thenCompose(v -> attempt(type, request, handler, trace));
+      }
+      return CompletableFuture.<T>failedFuture(cause);
+    }).thenCompose(Function.identity());
+  }
+
+  private CompletableFuture<HttpResponse<InputStream>> sendAttempt(HttpRequest request, RequestTrace trace) {
+    ++trace.attempts;
+    trace.sent = System.nanoTime();
+    return client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+  }
+
+  /**
+   * Whether actinia asked for credentials the request did not contain, which happens if preemptive authentication
+   * is disabled.
+   */
+  private boolean challenged(HttpRequest request, HttpResponse<InputStream> response) {
+    return response.statusCode() == 401 && authorization != null
+      && response.headers().firstValue("WWW-Authenticate").isPresent()
+      && request.headers().firstValue("Authorization").isEmpty();
+  }
+
+  /**
+   * Answer an authentication challenge by sending the request again with credentials.
+   */
+  private CompletableFuture<HttpResponse<InputStream>> authorize(HttpRequest request, HttpResponse<InputStream> response) {
+    try {
+      response.body().close();
+    } catch (IOException e) {
+      log.trace("Unable to discard the challenge response.", e);
+    }
+    HttpRequest authorized = HttpRequest.newBuilder(request, (name, value) -> true)
+      .header("Authorization", authorization)
+      .build();
+    return client.sendAsync(authorized, HttpResponse.BodyHandlers.ofInputStream());
+  }
+
+  private static Throwable unwrap(Throwable throwable) {
+    while ((throwable instanceof CompletionException || throwable instanceof ExecutionException) && throwable.getCause() != null) {
+      throwable = throwable.getCause();
+    }
+    return throwable;
+  }
+
+  /**
+   * Waits for the result of an asynchronous call, rethrowing any ActiniaException it failed with.
+   */
+  static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ActiniaException("Interrupted while waiting for actinia.", e);
+    } catch (ExecutionException e) {
+      Throwable cause = unwrap(e);
+      if (cause instanceof ActiniaException) {
+        throw (ActiniaException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ActiniaException("Unable to communicate with actinia.", (Exception) cause);
+    }
+  }
+
+  /**
+   * A file being downloaded, written next to its target with the suffix '.part'. The validator of the resource is kept
+   * in a second file with the suffix '.part.validator', so only part files this client wrote are resumed. A target is
+   * only downloaded once at a time: within the JVM until the download ended, across processes while the part file is
+   * locked.
+   */
+  private static class PartFile implements AutoCloseable {
+
+    private static final Set<Path> ACTIVE = ConcurrentHashMap.newKeySet();
+
+    private final Path target;
+
+    private final Path path;
+
+    private final Path validatorPath;
+
+    private final FileChannel channel;
+
+    private String validator;
+
+    private PartFile(Path target, Path path, Path validatorPath, FileChannel channel, String validator) {
+      this.target = target;
+      this.path = path;
+      this.validatorPath = validatorPath;
+      this.channel = channel;
+      this.validator = validator;
+    }
+
+    static PartFile open(Path target) throws IOException {
+      if (!ACTIVE.add(target.toAbsolutePath().normalize())) {
+        throw new IOException(target + " is already being downloaded.");
+      }
+      Path path = target.resolveSibling(target.getFileName() + ".part");
+      Path validatorPath = target.resolveSibling(target.getFileName() + ".part.validator");
+      FileChannel channel = null;
+      try {
+        // nothing is truncated before the lock is held
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.tryLock() == null) {
+          throw new IOException(path + " is locked by another process.");
+        }
+        String validator = null;
+        if (Files.isRegularFile(validatorPath)) {
+          validator = Files.readString(validatorPath, StandardCharsets.UTF_8).trim();
+        }
+        if (validator == null || validator.isEmpty()) {
+          validator = null;
+          channel.truncate(0);
+        }
+        return new PartFile(target, path, validatorPath, channel, validator);
+      } catch (IOException | RuntimeException e) {
+        if (channel != null) {
+          channel.close();
+        }
+        ACTIVE.remove(target.toAbsolutePath().normalize());
+        throw e;
+      }
+    }
+
+    /**
+     * Start over, remembering the validator of the new response.
+     */
+    void reset(String validator) throws IOException {
+      channel.truncate(0);
+      channel.position(0);
+      this.validator = validator;
+      if (validator == null) {
+        Files.deleteIfExists(validatorPath);
+      } else {
+        Files.writeString(validatorPath, validator, StandardCharsets.UTF_8);
+      }
+    }
+
+    void checkSize(String resourceUrl, long expected) throws IOException {
+      if (channel.size() != expected) {
+        throw new ActiniaException("Got " + channel.size() + " of " + expected + " bytes of " + resourceUrl);
+      }
+    }
+
+    /**
+     * Replace the target with the completely downloaded part file.
+     */
+    void complete() throws IOException {
+      try {
+        Files.move(path, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(path, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+      Files.deleteIfExists(validatorPath);
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+
+    /**
+     * Allow the target to be downloaded again, once the part file was closed and moved.
+     */
+    void release() {
+      ACTIVE.remove(target.toAbsolutePath().normalize());
+    }
+
+  }
+
+  /**
+   * Signals a response status that is worth retrying.
+   */
+  private static class TransientStatusException extends IOException {
+
+    TransientStatusException(int statusCode) {
+      super("actinia responded with status " + statusCode);
+    }
+
+  }
+
+  /**
+   * Collects the measurements of a request across its attempts for the request listener. Attempts run one after the
+   * other, so the fields are only written by one thread at a time.
+   */
+  private static class RequestTrace {
+
+    private final ResourceType type;
+
+    private final long start = System.nanoTime();
+
+    private volatile int attempts;
+
+    private volatile long sent;
+
+    private volatile int statusCode;
+
+    private volatile long responseNanos;
+
+    private volatile long parseNanos;
+
+    private volatile long bytes;
+
+    RequestTrace(ResourceType type) {
+      this.type = type;
+    }
+
+  }
+
+  /**
+   * Counts the bytes read from a response body.
+   */
+  private static class CountingInputStream extends FilterInputStream {
+
+    private long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        ++count;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        count += n;
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+
+    long getCount() {
+      return count;
+    }
+
+  }
+
+  @FunctionalInterface
+  private interface RequestFactory {
+    HttpRequest create() throws URISyntaxException, IOException;
+  }
+
+  @FunctionalInterface
+  private interface ResponseParser<T> {
+    T parse(InputStream in) throws IOException;
+  }
+
+  @FunctionalInterface
+  private interface ResponseHandler<T> {
+    T handle(HttpResponse<InputStream> response, InputStream in) throws IOException;
+  }
+
+  /**
+   * Configures the transport, authentication and caching of a client. Note that the connection pool of the JDK
+   * HttpClient is configured globally using the jdk.httpclient.connectionPoolSize and jdk.httpclient.keepalive.timeout
+   * system properties.
+   */
+  public static class Builder {
+
+    private final String url;
+
+    private String username;
+
+    private String password;
+
+    private String token;
+
+    private boolean preemptiveAuthentication = true;
+
+    private HttpClient.Version version;
+
+    private Duration connectTimeout;
+
+    private Duration requestTimeout;
+
+    private final Map<ResourceType, Duration> requestTimeouts = new EnumMap<>(ResourceType.class);
+
+    private Executor executor;
+
+    private HttpClient httpClient;
+
+    private CachePolicy cachePolicy = CachePolicy.defaults();
+
+    private RetryPolicy retryPolicy = RetryPolicy.defaults();
+
+    private RateLimiter rateLimiter;
+
+    private CircuitBreaker circuitBreaker;
+
+    private final List<RequestListener> listeners = new ArrayList<>();
+
+    private ResultCache resultCache;
+
+    private Builder(String url) {
+      this.url = url;
+    }
+
+    /**
+     * Authenticate using Basic authentication.
+     */
+    public Builder credentials(String username, String password) {
+      this.username = username;
+      this.password = password;
+      return this;
+    }
+
+    /**
+     * Authenticate using a bearer token instead of credentials.
+     */
+    public Builder token(String token) {
+      this.token = token;
+      return this;
+    }
+
+    /**
+     * See {@link ActiniaClient#setPreemptiveAuthentication(boolean)}, defaults to true.
+     */
+    public Builder preemptiveAuthentication(boolean preemptiveAuthentication) {
+      this.preemptiveAuthentication = preemptiveAuthentication;
+      return this;
+    }
+
+    /**
+     * The preferred HTTP version. HTTP/2 multiplexes concurrent requests over a single connection if actinia supports
+     * it, HTTP/1.1 opens a pooled connection per concurrent request.
+     */
+    public Builder version(HttpClient.Version version) {
+      this.version = version;
+      return this;
+    }
+
+    /**
+     * The maximum time to wait for a connection to be established.
+     */
+    public Builder connectTimeout(Duration connectTimeout) {
+      this.connectTimeout = connectTimeout;
+      return this;
+    }
+
+    /**
+     * The maximum time to wait for the response headers of any request. By default requests never time out.
+     */
+    public Builder requestTimeout(Duration requestTimeout) {
+      this.requestTimeout = requestTimeout;
+      return this;
+    }
+
+    /**
+     * The maximum time to wait for the response headers of requests for the given resource type, overriding the
+     * general request timeout.
+     */
+    public Builder requestTimeout(ResourceType type, Duration requestTimeout) {
+      requestTimeouts.put(type, requestTimeout);
+      return this;
+    }
+
+    /**
+     * The executor used by the HttpClient and to parse responses. By default the client uses its own pool of daemon
+     * threads.
+     */
+    public Builder executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Use a preconfigured HttpClient. The version and connect timeout of this builder are ignored then, configure them
+     * on the HttpClient instead. Do not set an Authenticator on it, it would drop the preemptive Authorization header.
+     */
+    public Builder httpClient(HttpClient httpClient) {
+      this.httpClient = httpClient;
+      return this;
+    }
+
+    public Builder cachePolicy(CachePolicy cachePolicy) {
+      this.cachePolicy = cachePolicy;
+      return this;
+    }
+
+    /**
+     * How idempotent requests are retried after transient failures, defaults to {@link RetryPolicy#defaults()}.
+     */
+    public Builder retryPolicy(RetryPolicy retryPolicy) {
+      this.retryPolicy = retryPolicy;
+      return this;
+    }
+
+    /**
+     * Limit the rate of requests sent by the client, by default the rate is not limited.
+     */
+    public Builder rateLimiter(RateLimiter rateLimiter) {
+      this.rateLimiter = rateLimiter;
+      return this;
+    }
+
+    /**
+     * Fail fast while actinia is unavailable, by default no circuit breaker is used.
+     */
+    public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+      this.circuitBreaker = circuitBreaker;
+      return this;
+    }
+
+    /**
+     * Notify the listener about every request, e.g. a {@link ClientMetrics} or {@link MicrometerListener}. Can be
+     * called repeatedly to add several listeners.
+     */
+    public Builder listener(RequestListener listener) {
+      listeners.add(listener);
+      return this;
+    }
+
+    /**
+     * Reuse the results of identical process chains that finished within the time to live of the cache instead of
+     * running them again. Disabled by default.
+     */
+    public Builder resultCache(ResultCache resultCache) {
+      this.resultCache = resultCache;
+      return this;
+    }
+
+    public ActiniaClient build() {
+      return new ActiniaClient(this);
+    }
+
   }
 
 }
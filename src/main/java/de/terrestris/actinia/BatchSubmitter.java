@@ -0,0 +1,149 @@
+package de.terrestris.actinia;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Submits many process chains while keeping at most a fixed number of them running on actinia. Producers are slowed
+ * down when the limit is reached: {@link #submit(ProcessJob)} blocks, and {@link #submitAll(Stream)} only pulls the
+ * next job from its input once a running one has completed.
+ */
+@Log4j2
+public class BatchSubmitter {
+
+  private final ActiniaClient client;
+
+  private final ProcessWatcher watcher;
+
+  private final Semaphore running;
+
+  /**
+   * Create a submitter that uses the watcher to wait for the processes and keeps at most maxRunning processes running.
+   */
+  public BatchSubmitter(ActiniaClient client, ProcessWatcher watcher, int maxRunning) {
+    if (maxRunning < 1) {
+      throw new IllegalArgumentException("At least one process must be allowed to run.");
+    }
+    this.client = client;
+    this.watcher = watcher;
+    this.running = new Semaphore(maxRunning);
+  }
+
+  /**
+   * Submit a job, blocking while the maximum number of processes is running. The future completes with the result
+   * once the process reached a final state or could not be submitted, it never completes exceptionally.
+   */
+  public CompletableFuture<JobResult> submit(ProcessJob job) {
+    try {
+      running.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ActiniaException("Interrupted while waiting to submit " + job, e);
+    }
+    return start(job);
+  }
+
+  /**
+   * Submit all jobs of the stream and return the results in the order the jobs complete. Jobs are pulled from the
+   * input lazily by the thread consuming the result stream, so no more than the maximum number of processes run at
+   * once and the input is never buffered.
+   */
+  public Stream<JobResult> submitAll(Stream<ProcessJob> jobs) {
+    Spliterator<ProcessJob> input = jobs.spliterator();
+    BlockingQueue<JobResult> results = new LinkedBlockingQueue<>();
+    Spliterator<JobResult> output = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.NONNULL) {
+
+      private boolean inputDone;
+
+      private boolean started;
+
+      private long outstanding;
+
+      @Override
+      public boolean tryAdvance(Consumer<? super JobResult> action) {
+        while (true) {
+          while (!inputDone && running.tryAcquire()) {
+            started = false;
+            try {
+              inputDone = !input.tryAdvance(job -> {
+                started = true;
+                start(job).thenAccept(results::add);
+              });
+            } finally {
+              // the permit belongs to the job once it started, also if the input failed
+              if (started) {
+                ++outstanding;
+              } else {
+                running.release();
+              }
+            }
+          }
+          if (outstanding > 0) {
+            break;
+          }
+          if (inputDone) {
+            return false;
+          }
+          // all slots are taken by processes started elsewhere, wait for one of them
+          try {
+            running.acquire();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ActiniaException("Interrupted while waiting for a free slot.", e);
+          }
+          running.release();
+        }
+        try {
+          JobResult result = results.take();
+          --outstanding;
+          action.accept(result);
+          return true;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new ActiniaException("Interrupted while waiting for process results.", e);
+        }
+      }
+
+    };
+    return StreamSupport.stream(output, false).onClose(jobs::close);
+  }
+
+  private CompletableFuture<JobResult> start(ProcessJob job) {
+    return run(client, watcher, job).whenComplete((result, throwable) -> running.release());
+  }
+
+  /**
+   * Submit a job and watch it. The future completes with the result, it never completes exceptionally.
+   */
+  static CompletableFuture<JobResult> run(ActiniaClient client, ProcessWatcher watcher, ProcessJob job) {
+    CompletableFuture<ProcessStatus> status;
+    try {
+      status = client.runProcessAsync(job.getLocation(), job.getMapset(), job.getModules(), job.getParameters())
+        .thenCompose(watcher::watch);
+    } catch (RuntimeException e) {
+      status = CompletableFuture.failedFuture(e);
+    }
+    return status.handle((result, throwable) -> {
+      if (throwable == null) {
+        return new JobResult(job, result, null);
+      }
+      Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+        ? throwable.getCause() : throwable;
+      ActiniaException failure = cause instanceof ActiniaException ? (ActiniaException) cause
+        : new ActiniaException("Unable to run " + job, cause instanceof Exception ? (Exception) cause : null);
+      log.debug("{} failed: {}", job, failure.getMessage());
+      return new JobResult(job, null, failure);
+    });
+  }
+
+}
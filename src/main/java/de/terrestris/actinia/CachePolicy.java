@@ -0,0 +1,91 @@
+package de.terrestris.actinia;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configures how long the client caches catalog resources and how many responses it keeps. Instances are immutable,
+ * use the with* methods to derive a modified policy.
+ */
+public class CachePolicy {
+
+  private static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+  private final Map<ResourceType, Duration> ttls;
+
+  private final int maximumSize;
+
+  private CachePolicy(Map<ResourceType, Duration> ttls, int maximumSize) {
+    this.ttls = ttls;
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * The default policy caches all catalog resources until they are invalidated, keeping at most 10000 responses.
+   */
+  public static CachePolicy defaults() {
+    return new CachePolicy(new EnumMap<>(ResourceType.class), DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * A policy that does not cache anything.
+   */
+  public static CachePolicy disabled() {
+    return defaults().withMaximumSize(0);
+  }
+
+  /**
+   * Derive a policy that expires cached resources of the given type after the given time. Use null to never expire
+   * them and Duration.ZERO to not cache them at all.
+   */
+  public CachePolicy withTtl(ResourceType type, Duration ttl) {
+    if (ttl != null && ttl.isNegative()) {
+      throw new IllegalArgumentException("The time to live must not be negative.");
+    }
+    Map<ResourceType, Duration> map = new EnumMap<>(ttls);
+    map.put(type, ttl);
+    return new CachePolicy(map, maximumSize);
+  }
+
+  /**
+   * Derive a policy that expires all cached resources after the given time.
+   */
+  public CachePolicy withTtl(Duration ttl) {
+    CachePolicy policy = this;
+    for (ResourceType type : ResourceType.values()) {
+      policy = policy.withTtl(type, ttl);
+    }
+    return policy;
+  }
+
+  /**
+   * Derive a policy that keeps at most the given number of responses, evicting the least recently used ones.
+   */
+  public CachePolicy withMaximumSize(int maximumSize) {
+    if (maximumSize < 0) {
+      throw new IllegalArgumentException("The maximum size must not be negative.");
+    }
+    return new CachePolicy(ttls, maximumSize);
+  }
+
+  /**
+   * The time to live for the given resource type, null if the resources never expire.
+   */
+  public Duration getTtl(ResourceType type) {
+    return ttls.get(type);
+  }
+
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Whether resources of the given type are cached at all.
+   */
+  public boolean isCached(ResourceType type) {
+    Duration ttl = ttls.get(type);
+    return maximumSize > 0 && (ttl == null || !ttl.isZero());
+  }
+
+}
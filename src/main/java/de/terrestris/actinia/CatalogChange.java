@@ -0,0 +1,70 @@
+package de.terrestris.actinia;
+
+/**
+ * A location, mapset, raster layer or space time raster dataset that was added to or removed from the catalog between
+ * two snapshots.
+ */
+public class CatalogChange {
+
+  public enum Kind {
+    ADDED, REMOVED
+  }
+
+  private final Kind kind;
+
+  private final ResourceType type;
+
+  private final String location;
+
+  private final String mapset;
+
+  private final String name;
+
+  CatalogChange(Kind kind, ResourceType type, String location, String mapset, String name) {
+    this.kind = kind;
+    this.type = type;
+    this.location = location;
+    this.mapset = mapset;
+    this.name = name;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * What was changed: {@link ResourceType#LOCATIONS}, {@link ResourceType#MAPSETS}, {@link ResourceType#RASTER_LAYERS}
+   * or {@link ResourceType#STRDS}.
+   */
+  public ResourceType getType() {
+    return type;
+  }
+
+  /**
+   * The location that was changed or contains the changed mapset.
+   */
+  public String getLocation() {
+    return location;
+  }
+
+  /**
+   * The mapset that was changed or contains the changed layer or dataset, null for location changes.
+   */
+  public String getMapset() {
+    return mapset;
+  }
+
+  /**
+   * The name of the changed location, mapset, layer or dataset.
+   */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String toString() {
+    String parent = type == ResourceType.LOCATIONS ? "" : " in " + location + (mapset == null ? "" : "/" + mapset);
+    return kind.name().toLowerCase() + " " + type.getTag() + " " + name + parent;
+  }
+
+}
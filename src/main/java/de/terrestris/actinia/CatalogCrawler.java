@@ -0,0 +1,156 @@
+package de.terrestris.actinia;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Walks all locations and mapsets of an actinia instance in parallel and collects their raster layers and space time
+ * raster datasets into a {@link CatalogSnapshot}. Failing locations or mapsets are reported in the snapshot instead of
+ * aborting the crawl.
+ */
+@Log4j2
+public class CatalogCrawler {
+
+  private final ActiniaClient client;
+
+  private int maxConcurrency = 4;
+
+  private int maxRequestsPerHost = 8;
+
+  public CatalogCrawler(ActiniaClient client) {
+    this.client = client;
+  }
+
+  ActiniaClient getClient() {
+    return client;
+  }
+
+  /**
+   * Set the number of mapsets that are crawled at the same time, defaults to 4.
+   */
+  public CatalogCrawler setMaxConcurrency(int maxConcurrency) {
+    this.maxConcurrency = maxConcurrency;
+    return this;
+  }
+
+  /**
+   * Set the number of requests that may be in flight against the actinia host at the same time, defaults to 8.
+   */
+  public CatalogCrawler setMaxRequestsPerHost(int maxRequestsPerHost) {
+    this.maxRequestsPerHost = maxRequestsPerHost;
+    return this;
+  }
+
+  /**
+   * Crawl the whole catalog.
+   */
+  public CatalogSnapshot crawl() {
+    return ActiniaClient.await(crawlAsync());
+  }
+
+  /**
+   * Crawl the whole catalog without blocking the calling thread. The future never completes exceptionally because of
+   * actinia errors, check {@link CatalogSnapshot#getFailures()} instead.
+   */
+  public CompletableFuture<CatalogSnapshot> crawlAsync() {
+    return new Crawl().run();
+  }
+
+  /**
+   * The state of a single crawl.
+   */
+  private class Crawl {
+
+    private final ConcurrencyLimiter nodes = new ConcurrencyLimiter(maxConcurrency);
+
+    private final ConcurrencyLimiter requests = new ConcurrencyLimiter(maxRequestsPerHost);
+
+    private final Map<String, List<String>> mapsets = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, List<String>>> rasterLayers = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<String, List<String>>> spaceTimeRasterDatasets = new ConcurrentHashMap<>();
+
+    private final List<CrawlFailure> failures = Collections.synchronizedList(new ArrayList<>());
+
+    CompletableFuture<CatalogSnapshot> run() {
+      return request(client::getLocationsAsync)
+        .thenCompose(locations -> CompletableFuture.allOf(locations.stream()
+          .map(location -> crawlLocation(location.getName()))
+          .toArray(CompletableFuture[]::new)))
+        .handle((v, throwable) -> {
+          if (throwable != null) {
+            fail(null, null, "locations", throwable);
+          }
+          synchronized (failures) {
+            return new CatalogSnapshot(mapsets, rasterLayers, spaceTimeRasterDatasets, failures);
+          }
+        });
+    }
+
+    private CompletableFuture<Void> crawlLocation(String location) {
+      mapsets.put(location, Collections.emptyList());
+      rasterLayers.put(location, new ConcurrentHashMap<>());
+      spaceTimeRasterDatasets.put(location, new ConcurrentHashMap<>());
+      return request(() -> client.getMapsetsAsync(location))
+        .thenCompose(list -> {
+          List<String> names = new ArrayList<>();
+          list.forEach(mapset -> names.add(mapset.getName()));
+          mapsets.put(location, names);
+          return CompletableFuture.allOf(names.stream()
+            .map(mapset -> nodes.submit(() -> crawlMapset(location, mapset)))
+            .toArray(CompletableFuture[]::new));
+        })
+        .exceptionally(throwable -> {
+          fail(location, null, "mapsets", throwable);
+          return null;
+        });
+    }
+
+    private CompletableFuture<Void> crawlMapset(String location, String mapset) {
+      CompletableFuture<Void> rasters = request(() -> client.getRasterLayersAsync(location, mapset))
+        .handle((list, throwable) -> {
+          if (throwable != null) {
+            fail(location, mapset, "raster_layers", throwable);
+          } else {
+            rasterLayers.get(location).put(mapset, list);
+          }
+          return null;
+        });
+      CompletableFuture<Void> datasets = request(() -> client.getSpaceTimeRasterDatasetsAsync(location, mapset))
+        .handle((list, throwable) -> {
+          if (throwable != null) {
+            fail(location, mapset, "strds", throwable);
+          } else {
+            spaceTimeRasterDatasets.get(location).put(mapset, list);
+          }
+          return null;
+        });
+      return CompletableFuture.allOf(rasters, datasets);
+    }
+
+    private <T> CompletableFuture<T> request(Supplier<CompletableFuture<T>> call) {
+      return requests.submit(call);
+    }
+
+    private void fail(String location, String mapset, String resource, Throwable throwable) {
+      while (throwable instanceof CompletionException && throwable.getCause() != null) {
+        throwable = throwable.getCause();
+      }
+      ActiniaException cause = throwable instanceof ActiniaException ? (ActiniaException) throwable
+        : new ActiniaException("Unable to crawl " + resource, throwable instanceof Exception ? (Exception) throwable : null);
+      log.debug("Unable to crawl {} of {}/{}: {}", resource, location, mapset, cause.getMessage());
+      failures.add(new CrawlFailure(location, mapset, resource, cause));
+    }
+
+  }
+
+}
@@ -0,0 +1,19 @@
+package de.terrestris.actinia;
+
+import java.util.List;
+
+/**
+ * Is notified by a {@link CatalogRefresher} when the catalog changed.
+ */
+@FunctionalInterface
+public interface CatalogListener {
+
+  /**
+   * Called after a refresh found changes.
+   *
+   * @param snapshot the new snapshot of the catalog
+   * @param changes  the changes since the previous snapshot
+   */
+  void catalogChanged(CatalogSnapshot snapshot, List<CatalogChange> changes);
+
+}
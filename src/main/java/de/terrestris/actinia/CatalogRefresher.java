@@ -0,0 +1,102 @@
+package de.terrestris.actinia;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps a snapshot of the catalog up to date and tells listeners what was added and removed, so downstream processing
+ * only needs to handle the changes. Each refresh invalidates the cached catalog of the client and crawls it again.
+ * Parts of the catalog that fail to crawl keep their previous content and are not reported as removed.
+ */
+@Log4j2
+public class CatalogRefresher {
+
+  private final CatalogCrawler crawler;
+
+  private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
+  private volatile CatalogSnapshot snapshot;
+
+  private CompletableFuture<List<CatalogChange>> running;
+
+  /**
+   * Create a refresher starting from an empty catalog, so the first refresh reports the whole catalog as added.
+   */
+  public CatalogRefresher(CatalogCrawler crawler) {
+    this(crawler, CatalogSnapshot.empty());
+  }
+
+  /**
+   * Create a refresher starting from a snapshot, e.g. one that was crawled before.
+   */
+  public CatalogRefresher(CatalogCrawler crawler, CatalogSnapshot initial) {
+    this.crawler = crawler;
+    this.snapshot = initial;
+  }
+
+  public void addListener(CatalogListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(CatalogListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * The most recent snapshot.
+   */
+  public CatalogSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Crawl the catalog again and notify the listeners about changes.
+   *
+   * @return the changes since the previous refresh
+   */
+  public List<CatalogChange> refresh() {
+    return ActiniaClient.await(refreshAsync());
+  }
+
+  /**
+   * Crawl the catalog again without blocking the calling thread. Listeners are notified before the future completes.
+   * Refreshing while a refresh is running joins the running one.
+   */
+  public synchronized CompletableFuture<List<CatalogChange>> refreshAsync() {
+    if (running != null && !running.isDone()) {
+      return running.copy();
+    }
+    ActiniaClient client = crawler.getClient();
+    client.invalidateCache(ResourceType.LOCATIONS);
+    client.invalidateCache(ResourceType.MAPSETS);
+    client.invalidateCache(ResourceType.RASTER_LAYERS);
+    client.invalidateCache(ResourceType.STRDS);
+    running = crawler.crawlAsync().thenApply(this::apply);
+    return running.copy();
+  }
+
+  private List<CatalogChange> apply(CatalogSnapshot crawled) {
+    CatalogSnapshot previous = snapshot;
+    CatalogSnapshot current = crawled.withFailedPartsFrom(previous);
+    List<CatalogChange> changes = current.changesSince(previous);
+    snapshot = current;
+    if (!crawled.isComplete()) {
+      log.info("Catalog refresh was incomplete, {} parts kept their previous content.", crawled.getFailures().size());
+    }
+    if (!changes.isEmpty()) {
+      for (CatalogListener listener : listeners) {
+        try {
+          listener.catalogChanged(current, changes);
+        } catch (RuntimeException e) {
+          log.warn("Catalog listener failed: {}", e.getMessage());
+          log.trace("Stack trace:", e);
+        }
+      }
+    }
+    return changes;
+  }
+
+}
@@ -0,0 +1,191 @@
+package de.terrestris.actinia;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An immutable view of the locations, mapsets, raster layers and space time raster datasets of an actinia instance
+ * at the time it was crawled. Names are ordered alphabetically.
+ */
+public class CatalogSnapshot {
+
+  private final Map<String, Set<String>> mapsets;
+
+  private final Map<String, Map<String, List<String>>> rasterLayers;
+
+  private final Map<String, Map<String, List<String>>> spaceTimeRasterDatasets;
+
+  private final List<CrawlFailure> failures;
+
+  CatalogSnapshot(Map<String, ? extends Collection<String>> mapsets,
+                  Map<String, Map<String, List<String>>> rasterLayers,
+                  Map<String, Map<String, List<String>>> spaceTimeRasterDatasets,
+                  List<CrawlFailure> failures) {
+    Map<String, Set<String>> names = new LinkedHashMap<>();
+    new TreeMap<>(mapsets).forEach((location, list) -> names.put(location, Collections.unmodifiableSet(new TreeSet<>(list))));
+    this.mapsets = Collections.unmodifiableMap(names);
+    this.rasterLayers = freeze(rasterLayers);
+    this.spaceTimeRasterDatasets = freeze(spaceTimeRasterDatasets);
+    this.failures = List.copyOf(failures);
+  }
+
+  private static Map<String, Map<String, List<String>>> freeze(Map<String, Map<String, List<String>>> map) {
+    Map<String, Map<String, List<String>>> result = new LinkedHashMap<>();
+    new TreeMap<>(map).forEach((location, mapsets) -> {
+      Map<String, List<String>> copy = new LinkedHashMap<>();
+      new TreeMap<>(mapsets).forEach((mapset, list) -> copy.put(mapset, list == null ? null : List.copyOf(list)));
+      result.put(location, Collections.unmodifiableMap(copy));
+    });
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * A snapshot of an empty catalog.
+   */
+  static CatalogSnapshot empty() {
+    return new CatalogSnapshot(Map.of(), Map.of(), Map.of(), List.of());
+  }
+
+  /**
+   * Get the names of all crawled locations.
+   */
+  public Set<String> getLocations() {
+    return mapsets.keySet();
+  }
+
+  /**
+   * Get the names of the mapsets of a location, or null if the location is unknown. The set is empty if the mapsets
+   * of the location could not be crawled.
+   */
+  public Set<String> getMapsets(String location) {
+    return mapsets.get(location);
+  }
+
+  /**
+   * Get the raster layers of a mapset, or null if the mapset is unknown or its raster layers could not be crawled.
+   */
+  public List<String> getRasterLayers(String location, String mapset) {
+    Map<String, List<String>> mapsets = rasterLayers.get(location);
+    return mapsets == null ? null : mapsets.get(mapset);
+  }
+
+  /**
+   * Get the space time raster datasets of a mapset, or null if the mapset is unknown or its datasets could not be
+   * crawled.
+   */
+  public List<String> getSpaceTimeRasterDatasets(String location, String mapset) {
+    Map<String, List<String>> mapsets = spaceTimeRasterDatasets.get(location);
+    return mapsets == null ? null : mapsets.get(mapset);
+  }
+
+  /**
+   * Get the parts of the catalog that could not be crawled.
+   */
+  public List<CrawlFailure> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Whether the whole catalog could be crawled without failures.
+   */
+  public boolean isComplete() {
+    return failures.isEmpty();
+  }
+
+  /**
+   * List what was added and removed since the given snapshot. Locations, mapsets, raster layers and datasets are
+   * reported in this order for each location. When a location or mapset is added or removed, its content is reported
+   * as well.
+   */
+  public List<CatalogChange> changesSince(CatalogSnapshot previous) {
+    List<CatalogChange> changes = new ArrayList<>();
+    Set<String> locations = new TreeSet<>(previous.getLocations());
+    locations.addAll(getLocations());
+    for (String location : locations) {
+      Set<String> before = previous.getMapsets(location);
+      Set<String> after = getMapsets(location);
+      if (before == null || after == null) {
+        CatalogChange.Kind kind = before == null ? CatalogChange.Kind.ADDED : CatalogChange.Kind.REMOVED;
+        changes.add(new CatalogChange(kind, ResourceType.LOCATIONS, location, null, location));
+      }
+      Set<String> mapsetNames = new TreeSet<>(before == null ? Set.of() : before);
+      mapsetNames.addAll(after == null ? Set.of() : after);
+      for (String mapset : mapsetNames) {
+        boolean existed = before != null && before.contains(mapset);
+        boolean exists = after != null && after.contains(mapset);
+        if (existed != exists) {
+          CatalogChange.Kind kind = exists ? CatalogChange.Kind.ADDED : CatalogChange.Kind.REMOVED;
+          changes.add(new CatalogChange(kind, ResourceType.MAPSETS, location, mapset, mapset));
+        }
+        compare(changes, ResourceType.RASTER_LAYERS, location, mapset,
+          previous.getRasterLayers(location, mapset), getRasterLayers(location, mapset));
+        compare(changes, ResourceType.STRDS, location, mapset,
+          previous.getSpaceTimeRasterDatasets(location, mapset), getSpaceTimeRasterDatasets(location, mapset));
+      }
+    }
+    return changes;
+  }
+
+  private static void compare(List<CatalogChange> changes, ResourceType type, String location, String mapset,
+                              List<String> before, List<String> after) {
+    Set<String> old = before == null ? Set.of() : new HashSet<>(before);
+    Set<String> current = after == null ? Set.of() : new HashSet<>(after);
+    if (before != null) {
+      before.stream().filter(name -> !current.contains(name))
+        .forEach(name -> changes.add(new CatalogChange(CatalogChange.Kind.REMOVED, type, location, mapset, name)));
+    }
+    if (after != null) {
+      after.stream().filter(name -> !old.contains(name))
+        .forEach(name -> changes.add(new CatalogChange(CatalogChange.Kind.ADDED, type, location, mapset, name)));
+    }
+  }
+
+  /**
+   * Create a snapshot with the parts of the catalog that failed to crawl taken from the given previous snapshot, so
+   * they are not mistaken as removed. The failures are kept.
+   */
+  CatalogSnapshot withFailedPartsFrom(CatalogSnapshot previous) {
+    if (isComplete()) {
+      return this;
+    }
+    for (CrawlFailure failure : failures) {
+      if (failure.getLocation() == null) {
+        return new CatalogSnapshot(previous.mapsets, previous.rasterLayers, previous.spaceTimeRasterDatasets, failures);
+      }
+    }
+    Map<String, Set<String>> mergedMapsets = new LinkedHashMap<>(mapsets);
+    Map<String, Map<String, List<String>>> mergedLayers = copy(rasterLayers);
+    Map<String, Map<String, List<String>>> mergedDatasets = copy(spaceTimeRasterDatasets);
+    for (CrawlFailure failure : failures) {
+      String location = failure.getLocation();
+      String mapset = failure.getMapset();
+      if (mapset == null) {
+        if (previous.mapsets.containsKey(location)) {
+          mergedMapsets.put(location, previous.mapsets.get(location));
+          mergedLayers.put(location, new LinkedHashMap<>(previous.rasterLayers.get(location)));
+          mergedDatasets.put(location, new LinkedHashMap<>(previous.spaceTimeRasterDatasets.get(location)));
+        }
+      } else if (failure.getResource().equals("raster_layers")) {
+        mergedLayers.get(location).put(mapset, previous.getRasterLayers(location, mapset));
+      } else if (failure.getResource().equals("strds")) {
+        mergedDatasets.get(location).put(mapset, previous.getSpaceTimeRasterDatasets(location, mapset));
+      }
+    }
+    return new CatalogSnapshot(mergedMapsets, mergedLayers, mergedDatasets, failures);
+  }
+
+  private static Map<String, Map<String, List<String>>> copy(Map<String, Map<String, List<String>>> map) {
+    Map<String, Map<String, List<String>>> result = new LinkedHashMap<>();
+    map.forEach((location, mapsets) -> result.put(location, new LinkedHashMap<>(mapsets)));
+    return result;
+  }
+
+}
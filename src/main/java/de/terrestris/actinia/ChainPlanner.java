@@ -0,0 +1,313 @@
+package de.terrestris.actinia;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Splits a process chain into independent branches and runs them concurrently. actinia runs a chain strictly step by
+ * step and locks the mapset it writes to, so independent steps, e.g. computing two indices from the same bands, wait
+ * for each other. The planner infers the dependencies of the steps from their parameter values: a step depends on an
+ * earlier one if it reads or writes a map the earlier one reads or writes as an output. Setup steps, like g.region,
+ * configure the steps after them and are repeated in every branch. Other steps without outputs, like r.mapcalc, may
+ * still write maps, so a chain containing one is not split.
+ * <p>
+ * Each branch runs in a new mapset, named after the target mapset and a random run id using the branch mapset
+ * format, with the target mapset added to its search path. New mapsets start with the default region instead of the
+ * region of the target mapset, so a chain is only split if it sets the region with g.region before its first output.
+ * Once all branches finished, the raster, vector and space time raster outputs are copied into the target mapset with
+ * g.copy and the branch mapsets are deleted, also if a branch or the copy failed. If joining is disabled, the branch
+ * mapsets are left in place and hold the outputs. Chains are run unsplit on servers without g.mapsets or g.copy.
+ */
+@Log4j2
+public class ChainPlanner {
+
+  private static final Map<String, String> COPY_OPTIONS = Map.of("cell", "raster", "vector", "vector", "strds", "strds");
+
+  private final ActiniaClient client;
+
+  private final ProcessWatcher watcher;
+
+  private volatile int maxRunning = 4;
+
+  private volatile String branchMapsetFormat = "%s_%s_branch_%d";
+
+  private volatile boolean join = true;
+
+  private volatile Set<String> setupModules = Set.of("g.region", "g.gisenv", "g.mapsets");
+
+  /**
+   * Create a planner that uses the watcher to wait for the branches.
+   */
+  public ChainPlanner(ActiniaClient client, ProcessWatcher watcher) {
+    this.client = client;
+    this.watcher = watcher;
+  }
+
+  /**
+   * Set the number of branches running at once, defaults to 4.
+   */
+  public ChainPlanner setMaxRunning(int maxRunning) {
+    if (maxRunning < 1) {
+      throw new IllegalArgumentException("At least one branch must be allowed to run.");
+    }
+    this.maxRunning = maxRunning;
+    return this;
+  }
+
+  /**
+   * Set the format of the branch mapset names, given the target mapset, the run id and the branch number. The run id
+   * is unique to each run, so concurrent runs and reruns do not share branch mapsets. Defaults to '%s_%s_branch_%d'.
+   */
+  public ChainPlanner setBranchMapsetFormat(String branchMapsetFormat) {
+    this.branchMapsetFormat = branchMapsetFormat;
+    return this;
+  }
+
+  /**
+   * Set whether the outputs of the branches are copied into the target mapset and the branch mapsets deleted, defaults
+   * to true.
+   */
+  public ChainPlanner setJoin(boolean join) {
+    this.join = join;
+    return this;
+  }
+
+  /**
+   * Set the modules whose steps only configure the steps after them and are repeated in every branch, defaults to
+   * g.region, g.gisenv and g.mapsets.
+   */
+  public ChainPlanner setSetupModules(Set<String> setupModules) {
+    this.setupModules = Set.copyOf(setupModules);
+    return this;
+  }
+
+  /**
+   * Split a chain into independent branches. Returns the step indices of each branch in chain order, including the
+   * setup steps that precede its last step. A chain without independent steps, with an output-less step that is not a
+   * setup step or without a g.region step before its first output yields a single branch. Note that this fetches the
+   * details of modules whose parameters have not been loaded yet.
+   */
+  public List<List<Integer>> plan(List<Module> modules, List<Map<String, String>> parameters) {
+    if (modules.size() != parameters.size()) {
+      throw new ActiniaException("Got " + modules.size() + " modules but " + parameters.size() + " parameter lists.");
+    }
+    int size = modules.size();
+    List<Set<String>> inputs = new ArrayList<>(size);
+    List<Set<String>> outputs = new ArrayList<>(size);
+    Set<String> produced = new HashSet<>();
+    Set<String> setup = setupModules;
+    boolean regionSet = false;
+    for (int i = 0; i < size; ++i) {
+      inputs.add(values(modules.get(i).getInputParameters(), parameters.get(i)));
+      outputs.add(values(modules.get(i).getOutputParameters(), parameters.get(i)));
+      produced.addAll(outputs.get(i));
+      String name = modules.get(i).getName();
+      if (outputs.get(i).isEmpty() && !setup.contains(name)) {
+        // e.g. r.mapcalc writes the map named in its expression, which would be lost with the branch mapset
+        return List.of(range(size));
+      }
+      regionSet |= produced.isEmpty() && name.equals("g.region");
+    }
+    if (!regionSet) {
+      return size == 0 ? List.of() : List.of(range(size));
+    }
+    int[] parent = new int[size];
+    for (int j = 0; j < size; ++j) {
+      parent[j] = j;
+      if (outputs.get(j).isEmpty()) {
+        // a setup step reading an output of the chain needs that output in every branch
+        if (inputs.get(j).stream().anyMatch(produced::contains)) {
+          return size == 0 ? List.of() : List.of(range(size));
+        }
+        continue;
+      }
+      for (int i = 0; i < j; ++i) {
+        if (!outputs.get(i).isEmpty() && (intersects(outputs.get(i), inputs.get(j))
+          || intersects(outputs.get(i), outputs.get(j)) || intersects(inputs.get(i), outputs.get(j)))) {
+          union(parent, i, j);
+        }
+      }
+    }
+    Map<Integer, List<Integer>> components = new LinkedHashMap<>();
+    for (int i = 0; i < size; ++i) {
+      if (!outputs.get(i).isEmpty()) {
+        components.computeIfAbsent(find(parent, i), root -> new ArrayList<>()).add(i);
+      }
+    }
+    if (components.size() <= 1) {
+      return size == 0 ? List.of() : List.of(range(size));
+    }
+    List<List<Integer>> branches = new ArrayList<>();
+    for (List<Integer> component : components.values()) {
+      int last = component.get(component.size() - 1);
+      List<Integer> branch = new ArrayList<>();
+      for (int i = 0; i <= last; ++i) {
+        if (outputs.get(i).isEmpty() || component.contains(i)) {
+          branch.add(i);
+        }
+      }
+      branches.add(List.copyOf(branch));
+    }
+    return branches;
+  }
+
+  /**
+   * Run a chain in the given mapset, see {@link #runAsync(String, String, List, List)}.
+   */
+  public List<JobResult> run(String location, String mapset, List<Module> modules, List<Map<String, String>> parameters) {
+    return ActiniaClient.await(runAsync(location, mapset, modules, parameters));
+  }
+
+  /**
+   * Run a chain in the given mapset, splitting it into concurrently running branches. The future completes with the
+   * results of the branches followed by the result of copying their outputs into the mapset, or with the single result
+   * of the chain if it could not be split. The copy is skipped if a branch failed. Failing to delete a branch mapset is
+   * only logged.
+   */
+  public CompletableFuture<List<JobResult>> runAsync(String location, String mapset, List<Module> modules, List<Map<String, String>> parameters) {
+    List<List<Integer>> branches = plan(modules, parameters);
+    Module mapsets = client.getModule("g.mapsets");
+    Module copyModule = client.getModule("g.copy");
+    if (branches.size() > 1 && (mapsets == null || join && copyModule == null)) {
+      log.debug("Not splitting a chain of {} steps, as the server lacks g.mapsets or g.copy", modules.size());
+      branches = List.of(range(modules.size()));
+    }
+    if (branches.size() <= 1) {
+      return start(new ProcessJob(location, mapset, modules, parameters)).thenApply(List::of);
+    }
+    String runId = UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+    log.debug("Running {} branches of a chain of {} steps as run {}", branches.size(), modules.size(), runId);
+    List<String> branchMapsets = new ArrayList<>();
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(maxRunning);
+    List<CompletableFuture<JobResult>> results = new ArrayList<>();
+    Map<String, Set<String>> copies = new LinkedHashMap<>();
+    for (int n = 0; n < branches.size(); ++n) {
+      String branchMapset = String.format(branchMapsetFormat, mapset, runId, n);
+      branchMapsets.add(branchMapset);
+      List<Module> branchModules = new ArrayList<>(List.of(mapsets));
+      List<Map<String, String>> branchParameters = new ArrayList<>(List.of(Map.of("operation", "add", "mapset", mapset)));
+      for (int i : branches.get(n)) {
+        branchModules.add(modules.get(i));
+        branchParameters.add(parameters.get(i));
+        addCopies(copies, modules.get(i), parameters.get(i), branchMapset);
+      }
+      ProcessJob job = new ProcessJob(location, branchMapset, branchModules, branchParameters);
+      results.add(limiter.submit(() -> start(job)));
+    }
+    CompletableFuture<List<JobResult>> joined = CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).thenCompose(v -> {
+      List<JobResult> list = new ArrayList<>();
+      results.forEach(result -> list.add(result.join()));
+      if (!join || copies.isEmpty() || !list.stream().allMatch(JobResult::isSuccessful)) {
+        return CompletableFuture.completedFuture(list);
+      }
+      Map<String, String> copy = new LinkedHashMap<>();
+      copies.forEach((option, pairs) -> copy.put(option, String.join(",", pairs)));
+      ProcessJob joinJob = new ProcessJob(location, mapset, List.of(copyModule), List.of(copy));
+      return start(joinJob).thenApply(result -> {
+        list.add(result);
+        return list;
+      });
+    });
+    if (!join) {
+      return joined;
+    }
+    // delete the branch mapsets once the join ended, whether it succeeded or not
+    return joined.handle((list, throwable) -> deleteMapsets(location, branchMapsets)
+      .thenApply(v -> {
+        if (throwable != null) {
+          throw new CompletionException(throwable);
+        }
+        return list;
+      })).thenCompose(Function.identity());
+  }
+
+  private CompletableFuture<Void> deleteMapsets(String location, List<String> mapsets) {
+    List<CompletableFuture<Void>> deletions = new ArrayList<>();
+    for (String mapset : mapsets) {
+      deletions.add(client.deleteMapsetAsync(location, mapset).exceptionally(throwable -> {
+        log.warn("Unable to delete the branch mapset {}: {}", mapset, throwable.getMessage());
+        return null;
+      }));
+    }
+    return CompletableFuture.allOf(deletions.toArray(new CompletableFuture[0]));
+  }
+
+  /**
+   * Collect the g.copy options copying the map outputs of a step from the branch mapset.
+   */
+  private static void addCopies(Map<String, Set<String>> copies, Module module, Map<String, String> values, String branchMapset) {
+    for (Parameter param : module.getOutputParameters()) {
+      String value = values.get(param.getName());
+      String option = COPY_OPTIONS.get(param.getParameterSchema().getSubtype());
+      if (value == null || option == null) {
+        continue;
+      }
+      for (String name : value.split(",")) {
+        copies.computeIfAbsent(option, key -> new LinkedHashSet<>()).add(name + "@" + branchMapset + "," + name);
+      }
+    }
+  }
+
+  private CompletableFuture<JobResult> start(ProcessJob job) {
+    return BatchSubmitter.run(client, watcher, job);
+  }
+
+  /**
+   * The map names a step reads or writes through the given parameters, without mapset qualifiers.
+   */
+  private static Set<String> values(List<Parameter> params, Map<String, String> values) {
+    Set<String> names = new HashSet<>();
+    for (Parameter param : params) {
+      String value = values.get(param.getName());
+      if (value == null) {
+        continue;
+      }
+      for (String name : value.split(",")) {
+        int at = name.indexOf('@');
+        names.add((at >= 0 ? name.substring(0, at) : name).trim());
+      }
+    }
+    return names;
+  }
+
+  private static boolean intersects(Set<String> a, Set<String> b) {
+    for (String name : a) {
+      if (b.contains(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int find(int[] parent, int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
+  private static void union(int[] parent, int i, int j) {
+    parent[find(parent, j)] = find(parent, i);
+  }
+
+  private static List<Integer> range(int size) {
+    List<Integer> list = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) {
+      list.add(i);
+    }
+    return list;
+  }
+
+}
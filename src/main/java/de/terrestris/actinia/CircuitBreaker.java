@@ -0,0 +1,73 @@
+package de.terrestris.actinia;
+
+import java.time.Duration;
+
+/**
+ * Stops sending requests to an actinia instance that failed repeatedly. After the given number of consecutive
+ * transient failures the circuit opens and requests fail immediately. Once the open duration has passed, a single
+ * trial request is let through. If it succeeds, the circuit closes again, otherwise it stays open for another period.
+ */
+public class CircuitBreaker {
+
+  private enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final int failureThreshold;
+
+  private final long openNanos;
+
+  private State state = State.CLOSED;
+
+  private int failures;
+
+  private long openedAt;
+
+  public CircuitBreaker(int failureThreshold, Duration openDuration) {
+    if (failureThreshold < 1) {
+      throw new IllegalArgumentException("The failure threshold must be at least 1.");
+    }
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openDuration.toNanos();
+  }
+
+  /**
+   * Whether a request may be sent now.
+   */
+  synchronized boolean allowRequest() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      default:
+        // in the half open state, another trial is let through if the previous one did not report back in time
+        long now = System.nanoTime();
+        if (now - openedAt >= openNanos) {
+          state = State.HALF_OPEN;
+          openedAt = now;
+          return true;
+        }
+        return false;
+    }
+  }
+
+  synchronized void onSuccess() {
+    state = State.CLOSED;
+    failures = 0;
+  }
+
+  synchronized void onFailure() {
+    if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = System.nanoTime();
+      failures = 0;
+    }
+  }
+
+  /**
+   * Whether the circuit is currently open, i.e. requests fail without being sent.
+   */
+  public synchronized boolean isOpen() {
+    return state != State.CLOSED;
+  }
+
+}
@@ -0,0 +1,154 @@
+package de.terrestris.actinia;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects request counts, failures, retries, transferred bytes, requests in flight and latency histograms per
+ * resource type in memory. Register it using {@link ActiniaClient.Builder#listener(RequestListener)}.
+ */
+public class ClientMetrics implements RequestListener {
+
+  private final Map<ResourceType, EndpointMetrics> endpoints = new EnumMap<>(ResourceType.class);
+
+  public ClientMetrics() {
+    for (ResourceType type : ResourceType.values()) {
+      endpoints.put(type, new EndpointMetrics(type));
+    }
+  }
+
+  /**
+   * The metrics of requests for the given resource type.
+   */
+  public EndpointMetrics get(ResourceType type) {
+    return endpoints.get(type);
+  }
+
+  @Override
+  public void requestStarted(ResourceType type) {
+    endpoints.get(type).inFlight.incrementAndGet();
+  }
+
+  @Override
+  public void requestRetried(ResourceType type, int attempt, Throwable cause) {
+    endpoints.get(type).retries.incrementAndGet();
+  }
+
+  @Override
+  public void requestCompleted(RequestEvent event) {
+    EndpointMetrics metrics = endpoints.get(event.getType());
+    metrics.inFlight.decrementAndGet();
+    metrics.requests.incrementAndGet();
+    if (!event.isSuccessful()) {
+      metrics.failures.incrementAndGet();
+    }
+    metrics.bytes.addAndGet(event.getBytes());
+    if (event.getAttempts() > 0) {
+      metrics.responseTime.record(event.getResponseTime().toNanos());
+      metrics.parseTime.record(event.getParseTime().toNanos());
+    }
+    metrics.totalTime.record(event.getTotalTime().toNanos());
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    endpoints.values().stream()
+      .filter(metrics -> metrics.getRequests() > 0 || metrics.getInFlight() > 0)
+      .forEach(metrics -> builder.append(metrics).append('\n'));
+    return builder.toString();
+  }
+
+  /**
+   * The metrics of a single resource type.
+   */
+  public static class EndpointMetrics {
+
+    private final ResourceType type;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicLong retries = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LatencyHistogram responseTime = new LatencyHistogram();
+
+    private final LatencyHistogram parseTime = new LatencyHistogram();
+
+    private final LatencyHistogram totalTime = new LatencyHistogram();
+
+    EndpointMetrics(ResourceType type) {
+      this.type = type;
+    }
+
+    public ResourceType getType() {
+      return type;
+    }
+
+    /**
+     * The number of completed requests, including failed ones.
+     */
+    public long getRequests() {
+      return requests.get();
+    }
+
+    public long getFailures() {
+      return failures.get();
+    }
+
+    public long getRetries() {
+      return retries.get();
+    }
+
+    /**
+     * The number of response body bytes read.
+     */
+    public long getBytes() {
+      return bytes.get();
+    }
+
+    /**
+     * The number of requests started but not completed yet.
+     */
+    public int getInFlight() {
+      return inFlight.get();
+    }
+
+    /**
+     * The time until the response headers arrived, see {@link RequestEvent#getResponseTime()}.
+     */
+    public LatencyHistogram getResponseTime() {
+      return responseTime;
+    }
+
+    /**
+     * The time spent reading and parsing response bodies, see {@link RequestEvent#getParseTime()}.
+     */
+    public LatencyHistogram getParseTime() {
+      return parseTime;
+    }
+
+    /**
+     * The time until requests completed, see {@link RequestEvent#getTotalTime()}.
+     */
+    public LatencyHistogram getTotalTime() {
+      return totalTime;
+    }
+
+    @Override
+    public String toString() {
+      return type.getTag() + ": requests=" + getRequests() + " failures=" + getFailures() + " retries=" + getRetries()
+        + " bytes=" + getBytes() + " inFlight=" + getInFlight() + " total[" + totalTime + "] response[" + responseTime
+        + "] parse[" + parseTime + "]";
+    }
+
+  }
+
+}
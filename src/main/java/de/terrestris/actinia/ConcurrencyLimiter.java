@@ -0,0 +1,89 @@
+package de.terrestris.actinia;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of asynchronous tasks running at once without blocking any thread. Tasks beyond the limit are
+ * queued and started in submission order as running tasks complete.
+ */
+class ConcurrencyLimiter {
+
+  private final int limit;
+
+  private final Queue<Runnable> waiting = new ArrayDeque<>();
+
+  private int running;
+
+  private boolean draining;
+
+  ConcurrencyLimiter(int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("The concurrency limit must be at least 1.");
+    }
+    this.limit = limit;
+  }
+
+  /**
+   * Start the task as soon as a slot is free. The returned future completes with the result of the task.
+   */
+  <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Runnable start = () -> {
+      CompletableFuture<T> future;
+      try {
+        future = task.get();
+      } catch (RuntimeException e) {
+        future = CompletableFuture.failedFuture(e);
+      }
+      future.whenComplete((value, throwable) -> {
+        release();
+        if (throwable != null) {
+          result.completeExceptionally(throwable);
+        } else {
+          result.complete(value);
+        }
+      });
+    };
+    synchronized (this) {
+      waiting.add(start);
+    }
+    drain();
+    return result;
+  }
+
+  private void release() {
+    synchronized (this) {
+      --running;
+    }
+    drain();
+  }
+
+  /**
+   * Starts queued tasks while slots are free. Only one thread drains at a time, which also keeps tasks that complete
+   * synchronously from recursing through release.
+   */
+  private void drain() {
+    synchronized (this) {
+      if (draining) {
+        return;
+      }
+      draining = true;
+    }
+    while (true) {
+      Runnable next;
+      synchronized (this) {
+        if (running >= limit || waiting.isEmpty()) {
+          draining = false;
+          return;
+        }
+        ++running;
+        next = waiting.poll();
+      }
+      next.run();
+    }
+  }
+
+}
@@ -0,0 +1,54 @@
+package de.terrestris.actinia;
+
+/**
+ * Describes a part of the catalog that could not be crawled.
+ */
+public class CrawlFailure {
+
+  private final String location;
+
+  private final String mapset;
+
+  private final String resource;
+
+  private final ActiniaException cause;
+
+  public CrawlFailure(String location, String mapset, String resource, ActiniaException cause) {
+    this.location = location;
+    this.mapset = mapset;
+    this.resource = resource;
+    this.cause = cause;
+  }
+
+  /**
+   * The location that failed or contains the failed mapset, null if the location list itself failed.
+   */
+  public String getLocation() {
+    return location;
+  }
+
+  /**
+   * The mapset that failed, null if the failure concerns a whole location.
+   */
+  public String getMapset() {
+    return mapset;
+  }
+
+  /**
+   * The resource that could not be fetched, e.g. 'locations', 'mapsets', 'raster_layers' or 'strds'.
+   */
+  public String getResource() {
+    return resource;
+  }
+
+  public ActiniaException getCause() {
+    return cause;
+  }
+
+  @Override
+  public String toString() {
+    return "Failed to crawl " + resource + (location == null ? "" : " of " + location)
+      + (mapset == null ? "" : "/" + mapset) + ": " + cause.getMessage();
+  }
+
+}
@@ -0,0 +1,107 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How actinia exports an output of an ephemeral process chain, see
+ * {@link ActiniaClient#runEphemeralProcess(String, List, List, List)}. The exported files are listed as resources of
+ * the finished process.
+ */
+public class Export {
+
+  /**
+   * Export a raster map as GeoTIFF.
+   */
+  public static final Export GEOTIFF = raster("GTiff");
+
+  /**
+   * Export a vector map as GeoPackage.
+   */
+  public static final Export GEOPACKAGE = vector("GPKG");
+
+  private final String type;
+
+  private final String format;
+
+  /**
+   * @param type   the kind of output, e.g. 'raster', 'vector', 'strds' or 'file'
+   * @param format the export format, e.g. 'GTiff', 'COG', 'GPKG', 'GeoJSON', 'ESRI_Shapefile' or 'CSV'
+   */
+  public Export(String type, String format) {
+    this.type = type;
+    this.format = format;
+  }
+
+  public static Export raster(String format) {
+    return new Export("raster", format);
+  }
+
+  public static Export vector(String format) {
+    return new Export("vector", format);
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public String getFormat() {
+    return format;
+  }
+
+  /**
+   * Export all raster outputs as GeoTIFF and all vector outputs as GeoPackage. Returns one map per module from output
+   * parameter names to exports, containing the outputs that got a value.
+   */
+  public static List<Map<String, Export>> defaults(List<Module> modules, List<Map<String, String>> parameters) {
+    List<Map<String, Export>> exports = new ArrayList<>();
+    for (int i = 0; i < modules.size(); ++i) {
+      Map<String, Export> map = new HashMap<>();
+      for (Parameter param : modules.get(i).getOutputParameters()) {
+        if (parameters.get(i).get(param.getName()) == null) {
+          continue;
+        }
+        String subtype = param.getParameterSchema().getSubtype();
+        if ("cell".equals(subtype)) {
+          map.put(param.getName(), GEOTIFF);
+        } else if ("vector".equals(subtype)) {
+          map.put(param.getName(), GEOPACKAGE);
+        }
+      }
+      exports.add(map);
+    }
+    return exports;
+  }
+
+  void write(JsonGenerator generator) throws IOException {
+    generator.writeObjectFieldStart("export");
+    generator.writeStringField("format", format);
+    generator.writeStringField("type", type);
+    generator.writeEndObject();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof Export)) {
+      return false;
+    }
+    Export other = (Export) o;
+    return type.equals(other.type) && format.equals(other.format);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * type.hashCode() + format.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return type + " as " + format;
+  }
+
+}
@@ -0,0 +1,51 @@
+package de.terrestris.actinia;
+
+/**
+ * The outcome of a {@link ProcessJob}: either the final status of the process or the reason it could not be
+ * submitted or watched.
+ */
+public class JobResult {
+
+  private final ProcessJob job;
+
+  private final ProcessStatus status;
+
+  private final ActiniaException failure;
+
+  JobResult(ProcessJob job, ProcessStatus status, ActiniaException failure) {
+    this.job = job;
+    this.status = status;
+    this.failure = failure;
+  }
+
+  public ProcessJob getJob() {
+    return job;
+  }
+
+  /**
+   * The final status of the process, null if it could not be submitted.
+   */
+  public ProcessStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * Why the job could not be submitted or watched, null if the process reached a final state.
+   */
+  public ActiniaException getFailure() {
+    return failure;
+  }
+
+  /**
+   * Whether the process was submitted and finished successfully.
+   */
+  public boolean isSuccessful() {
+    return failure == null && status != null && "finished".equals(status.getStatus());
+  }
+
+  @Override
+  public String toString() {
+    return job + (failure != null ? " failed: " + failure.getMessage() : " " + status.getStatus());
+  }
+
+}
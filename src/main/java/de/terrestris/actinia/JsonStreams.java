@@ -0,0 +1,120 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Shared Jackson instances and token streaming helpers used to parse actinia responses without building a tree.
+ */
+final class JsonStreams {
+
+  static final ObjectMapper MAPPER = new ObjectMapper();
+
+  static final ObjectReader READER = MAPPER.reader();
+
+  static final JsonFactory FACTORY = MAPPER.getFactory();
+
+  private JsonStreams() {
+  }
+
+  /**
+   * Handles a single array element. The parser is positioned on the first token of the element and must be left on
+   * its last token.
+   */
+  @FunctionalInterface
+  interface ElementHandler {
+    void handle(JsonParser parser) throws IOException;
+  }
+
+  /**
+   * Streams the string elements of the given top level array field into the consumer.
+   *
+   * @return the top level status text or null if the response does not contain one
+   */
+  static String forEachString(InputStream in, String field, Consumer<String> consumer) throws IOException {
+    return forEachElement(in, field, parser -> consumer.accept(parser.getValueAsString()));
+  }
+
+  /**
+   * Streams the elements of the given top level array field into the handler, skipping all other fields.
+   *
+   * @return the top level status text or null if the response does not contain one
+   */
+  static String forEachElement(InputStream in, String field, ElementHandler handler) throws IOException {
+    String status = null;
+    try (JsonParser parser = FACTORY.createParser(in)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new ActiniaException("Response was not a JSON object.");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.currentName();
+        JsonToken token = parser.nextToken();
+        if (name.equals(field)) {
+          if (token != JsonToken.START_ARRAY) {
+            throw new ActiniaException("The " + field + " of the response were not a list.");
+          }
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            handler.handle(parser);
+          }
+        } else if (name.equals("status") && token.isScalarValue()) {
+          status = parser.getValueAsString();
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    return status;
+  }
+
+  /**
+   * Write a tree with the fields of all objects sorted by name, so equal trees are written alike whatever the order
+   * of their fields.
+   */
+  static void writeCanonical(JsonGenerator generator, JsonNode node) throws IOException {
+    if (node.isObject()) {
+      List<String> names = new ArrayList<>();
+      node.fieldNames().forEachRemaining(names::add);
+      names.sort(null);
+      generator.writeStartObject();
+      for (String name : names) {
+        generator.writeFieldName(name);
+        writeCanonical(generator, node.get(name));
+      }
+      generator.writeEndObject();
+    } else if (node.isArray()) {
+      generator.writeStartArray();
+      for (JsonNode element : node) {
+        writeCanonical(generator, element);
+      }
+      generator.writeEndArray();
+    } else {
+      generator.writeTree(node);
+    }
+  }
+
+  /**
+   * The canonical JSON string of a tree, see {@link #writeCanonical(JsonGenerator, JsonNode)}.
+   */
+  static String canonical(JsonNode node) {
+    StringWriter writer = new StringWriter();
+    try (JsonGenerator generator = FACTORY.createGenerator(writer)) {
+      writeCanonical(generator, node);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to serialize a JSON tree.", e);
+    }
+    return writer.toString();
+  }
+
+}
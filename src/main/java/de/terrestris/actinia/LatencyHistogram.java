@@ -0,0 +1,93 @@
+package de.terrestris.actinia;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of durations with logarithmic buckets. Each power of two of microseconds is split into eight
+ * buckets, so reported percentiles are at most 12.5% above the recorded value, while the histogram takes a fixed
+ * amount of memory however many values are recorded.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+
+  private final AtomicLong count = new AtomicLong();
+
+  private final AtomicLong sum = new AtomicLong();
+
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record a duration given in nanoseconds.
+   */
+  public void record(long nanos) {
+    long micros = Math.max(nanos / 1000, 0);
+    buckets.incrementAndGet(bucket(micros));
+    count.incrementAndGet();
+    sum.addAndGet(micros);
+    max.accumulateAndGet(micros, Math::max);
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public Duration getMean() {
+    long n = count.get();
+    return n == 0 ? Duration.ZERO : Duration.ofNanos(sum.get() / n * 1000);
+  }
+
+  public Duration getMax() {
+    return Duration.ofNanos(max.get() * 1000);
+  }
+
+  /**
+   * The upper bound of the bucket containing the given percentile (0 to 100) of the recorded values.
+   */
+  public Duration getPercentile(double percentile) {
+    long n = count.get();
+    if (n == 0) {
+      return Duration.ZERO;
+    }
+    long rank = Math.max((long) Math.ceil(n * percentile / 100), 1);
+    long seen = 0;
+    for (int i = 0; i < buckets.length(); ++i) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Duration.ofNanos(Math.min(upperBound(i), max.get()) * 1000);
+      }
+    }
+    return getMax();
+  }
+
+  private static int bucket(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+    int sub = (int) (micros >>> exponent) - SUB_BUCKETS;
+    return (exponent + 1) * SUB_BUCKETS + sub;
+  }
+
+  private static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS - 1;
+    long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << exponent) - 1;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d mean=%dms p50=%dms p99=%dms max=%dms", getCount(), getMean().toMillis(),
+      getPercentile(50).toMillis(), getPercentile(99).toMillis(), getMax().toMillis());
+  }
+
+}
@@ -2,10 +2,7 @@ package de.terrestris.actinia;
 
 import lombok.extern.log4j.Log4j2;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Log4j2
 public class Location {
@@ -13,8 +10,6 @@ public class Location {
   private final String name;
   private final ActiniaClient client;
 
-  private Map<String, Mapset> mapsets;
-
   public Location(String name, ActiniaClient client) {
     this.name = name;
     this.client = client;
@@ -25,26 +20,17 @@ public class Location {
   }
 
   /**
-   * Get all available mapsets.
+   * Get all available mapsets. The list is cached by the client according to its cache policy.
    */
   public List<Mapset> getMapsets() {
-    if (mapsets != null) {
-      return new ArrayList<>(mapsets.values());
-    }
-    List<Mapset> list = client.getMapsets(name);
-    mapsets = new HashMap<>();
-    list.forEach(m -> mapsets.put(m.getName(), m));
-    return new ArrayList<>(mapsets.values());
+    return client.getMapsets(name);
   }
 
   /**
    * Get a mapset by name.
    */
   public Mapset getMapset(String name) {
-    if (mapsets == null) {
-      getMapsets();
-    }
-    return mapsets.get(name);
+    return client.getMapset(this.name, name);
   }
 
   @Override
@@ -10,8 +10,6 @@ public class Mapset {
   private final String name;
   private final ActiniaClient client;
   private final Location location;
-  private List<String> rasterLayers;
-  private List<String> spaceTimeRasterDatasets;
 
   public Mapset(String name, ActiniaClient client, Location location) {
     this.name = name;
@@ -31,23 +29,33 @@ public class Mapset {
   }
 
   /**
-   * Get the raster layers of this mapset.
+   * Get the raster layers of this mapset. The unmodifiable list is cached by the client according to its cache policy.
    */
   public List<String> getRasterLayers() {
-    if (rasterLayers != null) {
-      return rasterLayers;
-    }
-    return rasterLayers = client.getRasterLayers(location.getName(), name);
+    return client.getRasterLayers(location.getName(), name);
   }
 
   /**
-   * Get the space time raster datasets of this mapset.
+   * Get a compact, searchable index of the raster layers of this mapset, cached like {@link #getRasterLayers()}.
+   */
+  public RasterLayerIndex getRasterLayerIndex() {
+    return client.getRasterLayerIndex(location.getName(), name);
+  }
+
+  /**
+   * Find the raster layers of this mapset matching a glob pattern, see
+   * {@link ActiniaClient#findRasterLayers(String, String, String)}.
+   */
+  public List<String> findRasterLayers(String pattern) {
+    return client.findRasterLayers(location.getName(), name, pattern);
+  }
+
+  /**
+   * Get the space time raster datasets of this mapset. The unmodifiable list is cached by the client according to its
+   * cache policy.
    */
   public List<String> getSpaceTimeRasterDatasets() {
-    if (spaceTimeRasterDatasets != null) {
-      return spaceTimeRasterDatasets;
-    }
-    return spaceTimeRasterDatasets = client.getSpaceTimeRasterDatasets(location.getName(), name);
+    return client.getSpaceTimeRasterDatasets(location.getName(), name);
   }
 
   @Override
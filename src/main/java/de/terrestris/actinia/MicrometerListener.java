@@ -0,0 +1,75 @@
+package de.terrestris.actinia;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes request metrics to a Micrometer registry, tagged with the resource type. Micrometer is an optional
+ * dependency of this library, add micrometer-core to your project to use this listener.
+ * <p>
+ * Meters: actinia.client.requests (timer, tagged with type and outcome), actinia.client.response (timer until the
+ * response headers arrived), actinia.client.parse (timer), actinia.client.response.bytes (summary),
+ * actinia.client.retries (counter) and actinia.client.requests.active (gauge).
+ */
+public class MicrometerListener implements RequestListener {
+
+  /**
+   * The active request counts per registry. A registry keeps the first gauge registered under a name and tags, so all
+   * listeners publishing to it must count in the same instances.
+   */
+  private static final Map<MeterRegistry, Map<ResourceType, AtomicInteger>> ACTIVE = new WeakHashMap<>();
+
+  private final MeterRegistry registry;
+
+  private final Map<ResourceType, AtomicInteger> active;
+
+  private final Map<ResourceType, Counter> retries = new EnumMap<>(ResourceType.class);
+
+  public MicrometerListener(MeterRegistry registry) {
+    this.registry = registry;
+    synchronized (ACTIVE) {
+      active = ACTIVE.computeIfAbsent(registry, r -> {
+        Map<ResourceType, AtomicInteger> counts = new EnumMap<>(ResourceType.class);
+        for (ResourceType type : ResourceType.values()) {
+          counts.put(type, r.gauge("actinia.client.requests.active", Tags.of("type", type.getTag()), new AtomicInteger()));
+        }
+        return counts;
+      });
+    }
+    for (ResourceType type : ResourceType.values()) {
+      retries.put(type, registry.counter("actinia.client.retries", Tags.of("type", type.getTag())));
+    }
+  }
+
+  @Override
+  public void requestStarted(ResourceType type) {
+    active.get(type).incrementAndGet();
+  }
+
+  @Override
+  public void requestRetried(ResourceType type, int attempt, Throwable cause) {
+    retries.get(type).increment();
+  }
+
+  @Override
+  public void requestCompleted(RequestEvent event) {
+    active.get(event.getType()).decrementAndGet();
+    Tags tags = Tags.of("type", event.getType().getTag());
+    registry.timer("actinia.client.requests", tags.and("outcome", event.isSuccessful() ? "success" : "failure"))
+      .record(event.getTotalTime());
+    if (event.getAttempts() > 0) {
+      registry.timer("actinia.client.response", tags).record(event.getResponseTime());
+      registry.timer("actinia.client.parse", tags).record(event.getParseTime());
+      DistributionSummary.builder("actinia.client.response.bytes").baseUnit("bytes").tags(tags).register(registry)
+        .record(event.getBytes());
+    }
+  }
+
+}
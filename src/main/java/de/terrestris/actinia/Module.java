@@ -14,9 +14,7 @@ public class Module {
 
   private final String description;
 
-  private List<Parameter> inputParameters;
-
-  private List<Parameter> outputParameters;
+  private volatile ModuleDetails details;
 
   public Module(String name, String description, ActiniaClient client) {
     this.name = name;
@@ -32,32 +30,79 @@ public class Module {
     return description;
   }
 
+  /**
+   * Get the unmodifiable list of input parameters. They are fetched from actinia on first access unless they were
+   * prefetched using {@link ActiniaClient#prefetchModuleDetails(java.util.Collection)}.
+   */
   public List<Parameter> getInputParameters() {
-    if (inputParameters == null) {
+    ModuleDetails current = details;
+    if (current == null || current.getInputParameters() == null) {
       client.updateDetails(this);
+      current = details;
     }
-    return inputParameters;
+    return current.getInputParameters();
   }
 
+  /**
+   * Get the unmodifiable list of output parameters. They are fetched from actinia on first access unless they were
+   * prefetched using {@link ActiniaClient#prefetchModuleDetails(java.util.Collection)}.
+   */
   public List<Parameter> getOutputParameters() {
-    if (outputParameters == null) {
+    ModuleDetails current = details;
+    if (current == null || current.getOutputParameters() == null) {
       client.updateDetails(this);
+      current = details;
     }
-    return outputParameters;
+    return current.getOutputParameters();
   }
 
-  public void addInputParameter(Parameter parameter) {
-    if (inputParameters == null) {
-      inputParameters = new ArrayList<>();
+  /**
+   * Add an input parameter. The output parameters are still fetched from actinia on first access.
+   */
+  public synchronized void addInputParameter(Parameter parameter) {
+    ModuleDetails current = details;
+    List<Parameter> inputs = new ArrayList<>();
+    if (current != null && current.getInputParameters() != null) {
+      inputs.addAll(current.getInputParameters());
     }
-    inputParameters.add(parameter);
+    inputs.add(parameter);
+    details = new ModuleDetails(inputs, current == null ? null : current.getOutputParameters());
   }
 
-  public void addOutputParameter(Parameter parameter) {
-    if (outputParameters == null) {
-      outputParameters = new ArrayList<>();
+  /**
+   * Add an output parameter. The input parameters are still fetched from actinia on first access.
+   */
+  public synchronized void addOutputParameter(Parameter parameter) {
+    ModuleDetails current = details;
+    List<Parameter> outputs = new ArrayList<>();
+    if (current != null && current.getOutputParameters() != null) {
+      outputs.addAll(current.getOutputParameters());
     }
-    outputParameters.add(parameter);
+    outputs.add(parameter);
+    details = new ModuleDetails(current == null ? null : current.getInputParameters(), outputs);
+  }
+
+  /**
+   * Whether the input and output parameters of this module have been loaded.
+   */
+  boolean hasDetails() {
+    ModuleDetails current = details;
+    return current != null && current.isComplete();
+  }
+
+  /**
+   * Replace the parameters of this module. Readers see either the old or the new parameters, never a mix.
+   */
+  synchronized void setDetails(ModuleDetails details) {
+    this.details = details;
+  }
+
+  /**
+   * Use the parameters loaded from actinia for the sides that have not been set by adding parameters.
+   */
+  synchronized void loadDetails(ModuleDetails loaded) {
+    ModuleDetails current = details;
+    details = current == null ? loaded : current.complete(loaded);
   }
 
   @Override
@@ -0,0 +1,159 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The module list of an actinia instance together with the version information of the response it was read from.
+ * Catalogs can be stored in and loaded from gzipped JSON files, including the details of all modules whose parameters
+ * have been loaded.
+ */
+@Log4j2
+class ModuleCatalog {
+
+  static final int FORMAT_VERSION = 1;
+
+  private final Map<String, Module> modules;
+
+  private final String etag;
+
+  private final String fingerprint;
+
+  ModuleCatalog(Map<String, Module> modules, String etag, String fingerprint) {
+    this.modules = Collections.unmodifiableMap(new LinkedHashMap<>(modules));
+    this.etag = etag;
+    this.fingerprint = fingerprint;
+  }
+
+  Map<String, Module> getModules() {
+    return modules;
+  }
+
+  /**
+   * The ETag header of the module list response, null if actinia did not send one.
+   */
+  String getEtag() {
+    return etag;
+  }
+
+  /**
+   * The SHA-256 hash of the module list response body.
+   */
+  String getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Whether this catalog was read from the same module list as the other one.
+   */
+  boolean isSameVersion(ModuleCatalog other) {
+    return other != null && fingerprint != null && fingerprint.equals(other.fingerprint);
+  }
+
+  /**
+   * Write the catalog to a file. The file is replaced atomically where the file system supports it.
+   */
+  void write(Path file, String url) throws IOException {
+    Path dir = file.toAbsolutePath().getParent();
+    Files.createDirectories(dir);
+    Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+    try {
+      try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp));
+           JsonGenerator generator = JsonStreams.FACTORY.createGenerator(out)) {
+        generator.writeStartObject();
+        generator.writeNumberField("version", FORMAT_VERSION);
+        generator.writeStringField("url", url);
+        generator.writeStringField("etag", etag);
+        generator.writeStringField("fingerprint", fingerprint);
+        generator.writeArrayFieldStart("modules");
+        for (Module module : modules.values()) {
+          writeModule(generator, module);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+      }
+      try {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  private static void writeModule(JsonGenerator generator, Module module) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("id", module.getName());
+    generator.writeStringField("description", module.getDescription());
+    if (module.hasDetails()) {
+      generator.writeArrayFieldStart("parameters");
+      for (Parameter parameter : module.getInputParameters()) {
+        parameter.write(generator);
+      }
+      generator.writeEndArray();
+      generator.writeArrayFieldStart("returns");
+      for (Parameter parameter : module.getOutputParameters()) {
+        parameter.write(generator);
+      }
+      generator.writeEndArray();
+    }
+    generator.writeEndObject();
+  }
+
+  /**
+   * Read a catalog file written for the given actinia instance. Returns null if the file does not exist, was written
+   * in another format version or for another instance.
+   */
+  static ModuleCatalog read(Path file, String url, ActiniaClient client) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    JsonNode root;
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+      root = JsonStreams.READER.readTree(in);
+    }
+    if (root.path("version").asInt() != FORMAT_VERSION || !url.equals(root.path("url").asText())) {
+      log.info("Ignoring module catalog {} written in another format or for another instance.", file);
+      return null;
+    }
+    Map<String, Module> modules = new LinkedHashMap<>();
+    for (JsonNode node : root.get("modules")) {
+      Module module = new Module(node.get("id").asText(), textOrNull(node.get("description")), client);
+      if (node.has("parameters")) {
+        List<Parameter> inputs = new ArrayList<>();
+        for (JsonNode n : node.get("parameters")) {
+          inputs.add(new Parameter(n));
+        }
+        List<Parameter> outputs = new ArrayList<>();
+        for (JsonNode n : node.get("returns")) {
+          outputs.add(new Parameter(n));
+        }
+        module.setDetails(new ModuleDetails(inputs, outputs));
+      }
+      modules.put(module.getName(), module);
+    }
+    return new ModuleCatalog(modules, textOrNull(root.get("etag")), textOrNull(root.get("fingerprint")));
+  }
+
+  private static String textOrNull(JsonNode node) {
+    return node == null || node.isNull() ? null : node.asText();
+  }
+
+}
@@ -0,0 +1,42 @@
+package de.terrestris.actinia;
+
+import java.util.List;
+
+/**
+ * The parsed input and output parameters of a module. A side is null if its parameters have not been loaded.
+ */
+class ModuleDetails {
+
+  private final List<Parameter> inputParameters;
+
+  private final List<Parameter> outputParameters;
+
+  ModuleDetails(List<Parameter> inputParameters, List<Parameter> outputParameters) {
+    this.inputParameters = inputParameters == null ? null : List.copyOf(inputParameters);
+    this.outputParameters = outputParameters == null ? null : List.copyOf(outputParameters);
+  }
+
+  List<Parameter> getInputParameters() {
+    return inputParameters;
+  }
+
+  List<Parameter> getOutputParameters() {
+    return outputParameters;
+  }
+
+  /**
+   * Whether both sides have been loaded.
+   */
+  boolean isComplete() {
+    return inputParameters != null && outputParameters != null;
+  }
+
+  /**
+   * Fill the sides that have not been loaded from the given details.
+   */
+  ModuleDetails complete(ModuleDetails loaded) {
+    return new ModuleDetails(inputParameters == null ? loaded.inputParameters : inputParameters,
+      outputParameters == null ? loaded.outputParameters : outputParameters);
+  }
+
+}
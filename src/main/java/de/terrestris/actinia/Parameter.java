@@ -1,35 +1,37 @@
 package de.terrestris.actinia;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+
+/**
+ * An input or output parameter of a module. Parameters are immutable and schemas are shared between parameters, so
+ * holding large module catalogs is cheap.
+ */
 public class Parameter {
 
   private final String name;
 
   private final String description;
 
-  private final String type;
-
   private final String defaultValue;
 
   private final boolean optional;
 
-  private final String schema;
+  private final ParameterSchema schema;
 
+  /**
+   * Create a parameter from its description in a module document. The exception is declared for compatibility only.
+   */
   public Parameter(JsonNode node) throws JsonProcessingException {
-    ObjectMapper mapper = new ObjectMapper();
-    if (node.has("default")) {
-      defaultValue = node.get("default").asText();
-    } else {
-      defaultValue = null;
-    }
+    JsonNode defaultNode = node.get("default");
+    defaultValue = defaultNode == null ? null : defaultNode.asText();
     optional = node.get("optional").asBoolean();
     name = node.get("name").asText();
     description = node.get("description").asText();
-    type = node.get("schema").get("type").asText();
-    schema = mapper.writeValueAsString(node.get("schema"));
+    schema = ParameterSchema.of(node.get("schema"));
   }
 
   public String getName() {
@@ -41,7 +43,7 @@ public class Parameter {
   }
 
   public String getType() {
-    return type;
+    return schema.getType();
   }
 
   public String getDefaultValue() {
@@ -53,10 +55,33 @@ public class Parameter {
   }
 
   /**
-   * This contains the schema of the parameter as a JSON string, deserialize it if you need the details.
+   * This contains the schema of the parameter as a JSON string, see {@link #getParameterSchema()} for typed access.
    */
   public String getSchema() {
+    return schema.toJson();
+  }
+
+  /**
+   * The typed schema of the parameter.
+   */
+  public ParameterSchema getParameterSchema() {
     return schema;
   }
 
+  /**
+   * Write this parameter in the format actinia uses in module descriptions.
+   */
+  void write(JsonGenerator generator) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("name", name);
+    generator.writeStringField("description", description);
+    generator.writeBooleanField("optional", optional);
+    if (defaultValue != null) {
+      generator.writeStringField("default", defaultValue);
+    }
+    generator.writeFieldName("schema");
+    generator.writeTree(schema.getNode());
+    generator.writeEndObject();
+  }
+
 }
@@ -0,0 +1,159 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The typed schema of a module parameter. Schemas are immutable and shared, most parameters of a module catalog use
+ * one of a few distinct schemas, so equal schemas are represented by a single instance. Schemas are looked up by their
+ * JSON with sorted fields. As the schemas come from the server, the number of shared schemas is bounded: once the limit is
+ * reached, the least recently used one is no longer shared.
+ */
+public final class ParameterSchema {
+
+  private static final int MAXIMUM_SHARED = 1024;
+
+  private static final Map<String, ParameterSchema> SHARED = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, ParameterSchema> eldest) {
+      // instances handed out stay valid, later equal schemas just get a new one
+      return size() > MAXIMUM_SHARED;
+    }
+  };
+
+  private final JsonNode node;
+
+  private final String type;
+
+  private final String subtype;
+
+  private final boolean multiple;
+
+  private final List<String> enumValues;
+
+  private final Double minimum;
+
+  private final Double maximum;
+
+  private volatile String json;
+
+  private ParameterSchema(JsonNode node) {
+    this.node = node;
+    JsonNode items = node.path("items");
+    type = node.path("type").asText(null);
+    multiple = "array".equals(type) || node.path("multiple").asBoolean(false);
+    subtype = node.has("subtype") ? node.get("subtype").asText() : items.path("subtype").asText(null);
+    JsonNode values = node.has("enum") ? node.get("enum") : items.path("enum");
+    List<String> list = new ArrayList<>();
+    for (JsonNode value : values) {
+      list.add(value.asText());
+    }
+    enumValues = list.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(list);
+    minimum = number(node.has("minimum") ? node.get("minimum") : items.get("minimum"));
+    maximum = number(node.has("maximum") ? node.get("maximum") : items.get("maximum"));
+  }
+
+  /**
+   * Get the shared schema equal to the given schema node.
+   */
+  static ParameterSchema of(JsonNode node) {
+    String key = JsonStreams.canonical(node);
+    synchronized (SHARED) {
+      ParameterSchema schema = SHARED.get(key);
+      if (schema == null) {
+        // keep a private copy, so later changes to the caller's tree do not affect the shared instance
+        schema = new ParameterSchema(node.deepCopy());
+        SHARED.put(key, schema);
+      }
+      return schema;
+    }
+  }
+
+  /**
+   * The number of shared schemas.
+   */
+  static int getSharedCount() {
+    synchronized (SHARED) {
+      return SHARED.size();
+    }
+  }
+
+  private static Double number(JsonNode node) {
+    return node != null && node.isNumber() ? node.asDouble() : null;
+  }
+
+  /**
+   * The JSON schema type, e.g. 'string', 'number', 'integer', 'boolean' or 'array' for parameters taking multiple
+   * values.
+   */
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * The GRASS element type such as 'cell' for raster maps, null if the schema does not specify one.
+   */
+  public String getSubtype() {
+    return subtype;
+  }
+
+  /**
+   * Whether the parameter takes multiple values.
+   */
+  public boolean isMultiple() {
+    return multiple;
+  }
+
+  /**
+   * The allowed values, empty if any value of the type is allowed.
+   */
+  public List<String> getEnumValues() {
+    return enumValues;
+  }
+
+  /**
+   * The smallest allowed value, null if there is no lower bound.
+   */
+  public Double getMinimum() {
+    return minimum;
+  }
+
+  /**
+   * The largest allowed value, null if there is no upper bound.
+   */
+  public Double getMaximum() {
+    return maximum;
+  }
+
+  /**
+   * The schema as JSON string, as returned by actinia.
+   */
+  public String toJson() {
+    String result = json;
+    if (result == null) {
+      try {
+        result = JsonStreams.MAPPER.writeValueAsString(node);
+      } catch (JsonProcessingException e) {
+        throw new IllegalStateException("Unable to serialize a JSON tree.", e);
+      }
+      json = result;
+    }
+    return result;
+  }
+
+  JsonNode getNode() {
+    return node;
+  }
+
+  @Override
+  public String toString() {
+    return toJson();
+  }
+
+}
@@ -0,0 +1,217 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A process chain whose modules and parameter names are resolved once, so it can be run many times with different
+ * values. Binding values only looks up the declared parameters and writes the chain JSON with a streaming generator.
+ */
+public class ProcessChainTemplate {
+
+  private final List<Step> steps;
+
+  private ProcessChainTemplate(List<Step> steps) {
+    this.steps = steps;
+  }
+
+  /**
+   * Compile a template for the given modules. For each module, parameterNames contains the names of the input and
+   * output parameters the chain sets. Names the module does not know are rejected with an ActiniaException. Note that
+   * this fetches the details of modules whose parameters have not been loaded yet.
+   */
+  public static ProcessChainTemplate compile(List<Module> modules, List<? extends Collection<String>> parameterNames) {
+    return compile(modules, parameterNames, true);
+  }
+
+  /**
+   * Compile a template, optionally ignoring parameter names the modules do not know like
+   * {@link ActiniaClient#createProcessChain(List, List)} does. A lenient template also drops values of undeclared
+   * parameters when binding instead of rejecting them.
+   */
+  static ProcessChainTemplate compile(List<Module> modules, List<? extends Collection<String>> parameterNames, boolean strict) {
+    if (modules.size() != parameterNames.size()) {
+      throw new ActiniaException("Got " + modules.size() + " modules but " + parameterNames.size() + " parameter lists.");
+    }
+    List<Step> steps = new ArrayList<>();
+    Iterator<? extends Collection<String>> iter = parameterNames.iterator();
+    for (Module module : modules) {
+      Set<String> names = new HashSet<>(iter.next());
+      List<String> slots = new ArrayList<>();
+      for (Parameter param : module.getInputParameters()) {
+        if (names.remove(param.getName())) {
+          slots.add(param.getName());
+        }
+      }
+      for (Parameter param : module.getOutputParameters()) {
+        if (names.remove(param.getName())) {
+          slots.add(param.getName());
+        }
+      }
+      if (strict && !names.isEmpty()) {
+        throw new ActiniaException("Unknown parameters " + names + " of module " + module.getName());
+      }
+      steps.add(new Step(module.getName(), slots, strict));
+    }
+    return new ProcessChainTemplate(List.copyOf(steps));
+  }
+
+  /**
+   * The number of modules in the chain.
+   */
+  public int size() {
+    return steps.size();
+  }
+
+  /**
+   * Write the chain JSON for the given values, one map per module.
+   */
+  public byte[] toJson(List<Map<String, String>> values) {
+    return toJson(values, null);
+  }
+
+  /**
+   * Write the chain JSON for the given values, one map per module, asking actinia to call the given webhooks.
+   */
+  public byte[] toJson(List<Map<String, String>> values, Webhooks webhooks) {
+    return toJson(values, null, webhooks);
+  }
+
+  /**
+   * Write the chain JSON for the given values, exporting outputs as given by one map per module from output parameter
+   * names to exports, and asking actinia to call the given webhooks. Exports and webhooks may be null.
+   */
+  public byte[] toJson(List<Map<String, String>> values, List<Map<String, Export>> exports, Webhooks webhooks) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(256 * steps.size());
+    try {
+      write(values, exports, webhooks, out);
+    } catch (IOException e) {
+      throw new ActiniaException("Unable to write process chain.", e);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Write the chain JSON for the given values, one map per module, to the stream. Values for parameters that were not
+   * declared when compiling the template are rejected with an ActiniaException. Declared parameters without a value
+   * are left out.
+   */
+  public void write(List<Map<String, String>> values, OutputStream out) throws IOException {
+    write(values, null, out);
+  }
+
+  /**
+   * Write the chain JSON like {@link #write(List, OutputStream)}, adding the webhooks if they are not null.
+   */
+  public void write(List<Map<String, String>> values, Webhooks webhooks, OutputStream out) throws IOException {
+    write(values, null, webhooks, out);
+  }
+
+  /**
+   * Write the chain JSON like {@link #write(List, OutputStream)}, exporting outputs as given by one map per module from
+   * output parameter names to exports. Exported outputs must have a value. Exports and webhooks may be null.
+   */
+  public void write(List<Map<String, String>> values, List<Map<String, Export>> exports, Webhooks webhooks, OutputStream out) throws IOException {
+    if (values.size() != steps.size()) {
+      throw new ActiniaException("Got " + values.size() + " parameter maps for " + steps.size() + " modules.");
+    }
+    if (exports != null && exports.size() != steps.size()) {
+      throw new ActiniaException("Got " + exports.size() + " export maps for " + steps.size() + " modules.");
+    }
+    try (JsonGenerator generator = JsonStreams.FACTORY.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart("list");
+      Iterator<Map<String, String>> iter = values.iterator();
+      Iterator<Map<String, Export>> exportIter = exports == null ? null : exports.iterator();
+      for (Step step : steps) {
+        step.write(generator, iter.next(), exportIter == null ? Map.of() : exportIter.next());
+      }
+      generator.writeEndArray();
+      if (webhooks != null) {
+        webhooks.write(generator);
+      }
+      generator.writeStringField("version", "1");
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * A module of the chain together with the names of the parameters it may get values for.
+   */
+  private static class Step {
+
+    private final String module;
+
+    private final String[] slots;
+
+    private final Set<String> names;
+
+    private final boolean strict;
+
+    Step(String module, List<String> slots, boolean strict) {
+      this.module = module;
+      this.slots = slots.toArray(new String[0]);
+      this.names = Set.copyOf(slots);
+      this.strict = strict;
+    }
+
+    void write(JsonGenerator generator, Map<String, String> values, Map<String, Export> exports) throws IOException {
+      // only the slots are written, so a lenient step drops undeclared values
+      if (strict && !names.containsAll(values.keySet())) {
+        Set<String> unknown = new HashSet<>(values.keySet());
+        unknown.removeAll(names);
+        throw new ActiniaException("Parameters " + unknown + " of module " + module + " were not declared in the template.");
+      }
+      if (!names.containsAll(exports.keySet())) {
+        throw new ActiniaException("Exports " + exports.keySet() + " of module " + module + " were not declared in the template.");
+      }
+      generator.writeStartObject();
+      generator.writeStringField("module", module);
+      generator.writeStringField("id", module);
+      generator.writeArrayFieldStart("inputs");
+      for (String slot : slots) {
+        String value = values.get(slot);
+        if (value != null && !exports.containsKey(slot)) {
+          generator.writeStartObject();
+          generator.writeStringField("param", slot);
+          generator.writeStringField("value", value);
+          generator.writeEndObject();
+        }
+      }
+      generator.writeEndArray();
+      if (!exports.isEmpty()) {
+        // exported outputs must be listed as outputs, actinia ignores exports of inputs
+        generator.writeArrayFieldStart("outputs");
+        for (String slot : slots) {
+          Export export = exports.get(slot);
+          if (export == null) {
+            continue;
+          }
+          String value = values.get(slot);
+          if (value == null) {
+            throw new ActiniaException("The exported output " + slot + " of module " + module + " has no value.");
+          }
+          generator.writeStartObject();
+          generator.writeStringField("param", slot);
+          generator.writeStringField("value", value);
+          export.write(generator);
+          generator.writeEndObject();
+        }
+        generator.writeEndArray();
+      }
+      generator.writeEndObject();
+    }
+
+  }
+
+}
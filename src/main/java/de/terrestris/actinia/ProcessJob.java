@@ -0,0 +1,47 @@
+package de.terrestris.actinia;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A process chain to be run in a mapset, see {@link ActiniaClient#runProcess(String, String, List, List)}.
+ */
+public class ProcessJob {
+
+  private final String location;
+
+  private final String mapset;
+
+  private final List<Module> modules;
+
+  private final List<Map<String, String>> parameters;
+
+  public ProcessJob(String location, String mapset, List<Module> modules, List<Map<String, String>> parameters) {
+    this.location = location;
+    this.mapset = mapset;
+    this.modules = List.copyOf(modules);
+    this.parameters = List.copyOf(parameters);
+  }
+
+  public String getLocation() {
+    return location;
+  }
+
+  public String getMapset() {
+    return mapset;
+  }
+
+  public List<Module> getModules() {
+    return modules;
+  }
+
+  public List<Map<String, String>> getParameters() {
+    return parameters;
+  }
+
+  @Override
+  public String toString() {
+    return "Job " + modules + " in " + location + "/" + mapset;
+  }
+
+}
@@ -1,5 +1,9 @@
 package de.terrestris.actinia;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * This class can be used to monitor a running process.
  */
@@ -9,28 +13,177 @@ public class ProcessStatus {
 
   private final ActiniaClient client;
 
-  private String status;
+  private final String location;
+
+  private final String mapset;
+
+  private volatile String status;
+
+  private volatile String message;
+
+  private volatile String resourceId;
+
+  private volatile int step;
+
+  private volatile int numberOfSteps;
+
+  private volatile Instant acceptTimestamp;
+
+  private volatile Instant timestamp;
+
+  private volatile List<String> resources = List.of();
+
+  private volatile String resultKey;
+
+  private volatile boolean cached;
 
   public ProcessStatus(String url, ActiniaClient client) {
+    this(url, client, null, null);
+  }
+
+  public ProcessStatus(String url, ActiniaClient client, String location, String mapset) {
     this.url = url;
     this.client = client;
+    this.location = location;
+    this.mapset = mapset;
   }
 
   public String getUrl() {
     return url;
   }
 
+  ActiniaClient getClient() {
+    return client;
+  }
+
+  /**
+   * The location the process runs in, null if unknown.
+   */
+  public String getLocation() {
+    return location;
+  }
+
+  /**
+   * The mapset the process writes to, null if unknown or if the process runs in an ephemeral mapset.
+   */
+  public String getMapset() {
+    return mapset;
+  }
+
   public void setStatus(String status) {
     this.status = status;
   }
 
   /**
-   * The status of the process in actinia, 'accepted', 'error' or 'finished'.
+   * The status of the process in actinia, 'accepted', 'running', 'error', 'terminated' or 'finished'.
    */
   public String getStatus() {
     return status;
   }
 
+  /**
+   * The last message actinia reported for the process.
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * The id actinia assigned to the process.
+   */
+  public String getResourceId() {
+    return resourceId;
+  }
+
+  /**
+   * The process chain step actinia is currently working on.
+   */
+  public int getStep() {
+    return step;
+  }
+
+  /**
+   * The number of steps of the process chain, 0 if unknown.
+   */
+  public int getNumberOfSteps() {
+    return numberOfSteps;
+  }
+
+  /**
+   * When actinia accepted the process, null if unknown.
+   */
+  public Instant getAcceptTimestamp() {
+    return acceptTimestamp;
+  }
+
+  /**
+   * When actinia last updated the status, null if unknown.
+   */
+  public Instant getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * The URLs of the results the process exported, e.g. GeoTIFF files. They are listed once the process has finished and
+   * can be downloaded using {@link ActiniaClient#downloadResources(ProcessStatus, java.nio.file.Path)}.
+   */
+  public List<String> getResources() {
+    return resources;
+  }
+
+  /**
+   * Whether the status was taken from the {@link ResultCache} instead of running the process chain again.
+   */
+  public boolean isCached() {
+    return cached;
+  }
+
+  void setCached(boolean cached) {
+    this.cached = cached;
+  }
+
+  /**
+   * The key the result is stored under in the result cache once the process has finished, null if it is not cached.
+   */
+  String getResultKey() {
+    return resultKey;
+  }
+
+  void setResultKey(String resultKey) {
+    this.resultKey = resultKey;
+  }
+
+  /**
+   * Take over the fields of a parsed status document. Fields missing from the document keep their values. Returns
+   * true if the process has just finished.
+   */
+  synchronized boolean apply(StatusUpdate update) {
+    boolean finished = "finished".equals(update.getStatus()) && !"finished".equals(status);
+    if (update.getMessage() != null) {
+      message = update.getMessage();
+    }
+    if (update.getResourceId() != null) {
+      resourceId = update.getResourceId();
+    }
+    if (update.getNumberOfSteps() > 0) {
+      step = update.getStep();
+      numberOfSteps = update.getNumberOfSteps();
+    }
+    if (update.getAcceptTimestamp() != null) {
+      acceptTimestamp = update.getAcceptTimestamp();
+    }
+    if (update.getTimestamp() != null) {
+      timestamp = update.getTimestamp();
+    }
+    if (update.getResources() != null) {
+      resources = update.getResources();
+    }
+    if (update.getStatus() != null) {
+      status = update.getStatus();
+    }
+    return finished;
+  }
+
   /**
    * Use this to check for updates of the process status.
    */
@@ -38,4 +191,11 @@ public class ProcessStatus {
     client.updateStatus(this);
   }
 
+  /**
+   * Use this to check for updates of the process status without blocking the calling thread.
+   */
+  public CompletableFuture<ProcessStatus> updateAsync() {
+    return client.updateStatusAsync(this);
+  }
+
 }
@@ -0,0 +1,223 @@
+package de.terrestris.actinia;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls many running processes from a single scheduler thread until they are finished, failed or terminated. The
+ * polling interval of a process starts at the initial delay and grows exponentially up to the maximum delay. It is
+ * reset whenever the process changes its state. While a process has only been accepted, the interval grows by twice the
+ * backoff multiplier. The interval is at least a tenth of the time since the process was accepted, so long running
+ * processes are polled less often, but never exceeds the maximum delay.
+ */
+@Log4j2
+public class ProcessWatcher implements AutoCloseable {
+
+  static final Set<String> TERMINAL_STATES = Set.of("finished", "error", "terminated");
+
+  private static final double AGE_FRACTION = 0.1;
+
+  private final ScheduledExecutorService scheduler;
+
+  private final boolean ownScheduler;
+
+  private final ConcurrentMap<String, CompletableFuture<ProcessStatus>> watched = new ConcurrentHashMap<>();
+
+  private volatile Duration initialDelay = Duration.ofSeconds(1);
+
+  private volatile Duration maximumDelay = Duration.ofMinutes(1);
+
+  private volatile double backoffMultiplier = 1.5;
+
+  private volatile int maximumErrors = 5;
+
+  /**
+   * Create a watcher with its own scheduler thread. Close it to stop the thread.
+   */
+  public ProcessWatcher() {
+    this(Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "actinia-process-watcher");
+      thread.setDaemon(true);
+      return thread;
+    }), true);
+  }
+
+  /**
+   * Create a watcher using the given scheduler. The scheduler is not shut down when the watcher is closed.
+   */
+  public ProcessWatcher(ScheduledExecutorService scheduler) {
+    this(scheduler, false);
+  }
+
+  private ProcessWatcher(ScheduledExecutorService scheduler, boolean ownScheduler) {
+    this.scheduler = scheduler;
+    this.ownScheduler = ownScheduler;
+  }
+
+  /**
+   * Set the delay before the first poll and after each state change, defaults to one second.
+   */
+  public ProcessWatcher setInitialDelay(Duration initialDelay) {
+    this.initialDelay = initialDelay;
+    return this;
+  }
+
+  /**
+   * Set the upper bound of the polling interval, defaults to one minute.
+   */
+  public ProcessWatcher setMaximumDelay(Duration maximumDelay) {
+    this.maximumDelay = maximumDelay;
+    return this;
+  }
+
+  /**
+   * Set the factor the polling interval grows by after each unchanged poll, defaults to 1.5.
+   */
+  public ProcessWatcher setBackoffMultiplier(double backoffMultiplier) {
+    if (backoffMultiplier < 1) {
+      throw new IllegalArgumentException("The backoff multiplier must be at least 1.");
+    }
+    this.backoffMultiplier = backoffMultiplier;
+    return this;
+  }
+
+  /**
+   * Set the number of consecutive failed polls after which watching a process fails, defaults to 5.
+   */
+  public ProcessWatcher setMaximumErrors(int maximumErrors) {
+    this.maximumErrors = maximumErrors;
+    return this;
+  }
+
+  /**
+   * Watch a process until it reaches a terminal state. The future completes with the status once it is 'finished',
+   * 'error' or 'terminated', or fails if the status could not be fetched repeatedly. Watching the same process twice
+   * shares the polling.
+   */
+  public CompletableFuture<ProcessStatus> watch(ProcessStatus status) {
+    if (status.getStatus() != null && TERMINAL_STATES.contains(status.getStatus())) {
+      return CompletableFuture.completedFuture(status);
+    }
+    CompletableFuture<ProcessStatus> future = new CompletableFuture<>();
+    CompletableFuture<ProcessStatus> existing = watched.putIfAbsent(status.getUrl(), future);
+    if (existing != null) {
+      return existing.copy();
+    }
+    future.whenComplete((result, throwable) -> watched.remove(status.getUrl(), future));
+    new Watch(status, future).schedule(initialDelay.toMillis());
+    return future.copy();
+  }
+
+  /**
+   * Stop polling a process that is known to have ended, completing its future with the given status.
+   */
+  void stopWatching(ProcessStatus status) {
+    CompletableFuture<ProcessStatus> future = watched.get(status.getUrl());
+    if (future != null) {
+      future.complete(status);
+    }
+  }
+
+  /**
+   * The number of processes currently being watched.
+   */
+  public int getWatchedCount() {
+    return watched.size();
+  }
+
+  /**
+   * Stop watching. Pending futures are cancelled.
+   */
+  @Override
+  public void close() {
+    if (ownScheduler) {
+      scheduler.shutdownNow();
+    }
+    watched.values().forEach(future -> future.cancel(false));
+  }
+
+  /**
+   * The polling state of a single process.
+   */
+  private class Watch {
+
+    private final ProcessStatus status;
+
+    private final CompletableFuture<ProcessStatus> future;
+
+    private String lastState;
+
+    private long delay;
+
+    private int errors;
+
+    Watch(ProcessStatus status, CompletableFuture<ProcessStatus> future) {
+      this.status = status;
+      this.future = future;
+      this.lastState = status.getStatus();
+    }
+
+    void schedule(long millis) {
+      delay = millis;
+      try {
+        scheduler.schedule(this::poll, millis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        future.completeExceptionally(new ActiniaException("The process watcher was closed.", e));
+      }
+    }
+
+    private void poll() {
+      if (future.isDone()) {
+        return;
+      }
+      status.updateAsync().whenComplete((result, throwable) -> {
+        if (throwable != null) {
+          if (++errors >= maximumErrors) {
+            future.completeExceptionally(throwable);
+          } else {
+            log.debug("Polling {} failed, retrying: {}", status.getUrl(), throwable.getMessage());
+            schedule(nextDelay());
+          }
+          return;
+        }
+        errors = 0;
+        String state = status.getStatus();
+        if (state != null && TERMINAL_STATES.contains(state)) {
+          future.complete(status);
+          return;
+        }
+        if (state != null && !state.equals(lastState)) {
+          lastState = state;
+          schedule(initialDelay.toMillis());
+        } else {
+          schedule(nextDelay());
+        }
+      });
+    }
+
+    private long nextDelay() {
+      double next = Math.max(delay, 1) * backoffMultiplier;
+      if ("accepted".equals(lastState)) {
+        next *= 2;
+      }
+      Instant accepted = status.getAcceptTimestamp();
+      if (accepted != null) {
+        // a process is unlikely to end within a small fraction of the time it already took
+        next = Math.max(next, Duration.between(accepted, Instant.now()).toMillis() * AGE_FRACTION);
+      }
+      return (long) Math.min(next, maximumDelay.toMillis());
+    }
+
+  }
+
+}
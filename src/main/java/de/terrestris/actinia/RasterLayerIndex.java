@@ -0,0 +1,415 @@
+package de.terrestris.actinia;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable, sorted index of the raster layer names of a mapset. The names are front coded in blocks of sixteen:
+ * the first name of a block is stored completely, the following ones only store the bytes that differ from their
+ * predecessor. As layer names of large mapsets share long prefixes (e.g. scene ids), this takes a fraction of the
+ * memory of a list of strings while still allowing binary search.
+ * <p>
+ * Queries return lazy streams in alphabetical order, use skip and limit to paginate them.
+ */
+public final class RasterLayerIndex implements Iterable<String> {
+
+  private static final int BLOCK_SIZE = 16;
+
+  private final String mapset;
+
+  private final byte[] data;
+
+  private final int[] blocks;
+
+  private final int size;
+
+  private RasterLayerIndex(String mapset, byte[] data, int[] blocks, int size) {
+    this.mapset = mapset;
+    this.data = data;
+    this.blocks = blocks;
+    this.size = size;
+  }
+
+  /**
+   * Build an index of the given names of raster layers in the given mapset. Duplicates are removed.
+   */
+  public static RasterLayerIndex of(String mapset, Collection<String> names) {
+    String[] sorted = names.toArray(new String[0]);
+    Arrays.sort(sorted);
+    int[] blocks = new int[(sorted.length + BLOCK_SIZE - 1) / BLOCK_SIZE];
+    ByteBuffer out = new ByteBuffer(sorted.length * 8);
+    byte[] previous = null;
+    int count = 0;
+    for (String name : sorted) {
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      if (previous != null && Arrays.equals(previous, bytes)) {
+        continue;
+      }
+      int prefix = 0;
+      if (count % BLOCK_SIZE == 0) {
+        blocks[count / BLOCK_SIZE] = out.length;
+      } else {
+        prefix = Arrays.mismatch(previous, bytes);
+      }
+      out.writeVarInt(prefix);
+      out.writeVarInt(bytes.length - prefix);
+      out.write(bytes, prefix, bytes.length - prefix);
+      previous = bytes;
+      ++count;
+    }
+    return new RasterLayerIndex(mapset, out.toArray(), Arrays.copyOf(blocks, (count + BLOCK_SIZE - 1) / BLOCK_SIZE), count);
+  }
+
+  /**
+   * The name of the mapset the layers belong to.
+   */
+  public String getMapset() {
+    return mapset;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * The number of bytes used to store the names.
+   */
+  public int getEncodedSize() {
+    return data.length + blocks.length * Integer.BYTES;
+  }
+
+  /**
+   * Get the name at the given position in alphabetical order.
+   */
+  public String get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+    Cursor cursor = new Cursor(index / BLOCK_SIZE * BLOCK_SIZE);
+    String name = cursor.next();
+    for (int i = index % BLOCK_SIZE; i > 0; --i) {
+      name = cursor.next();
+    }
+    return name;
+  }
+
+  public boolean contains(String name) {
+    return indexOf(name) >= 0;
+  }
+
+  /**
+   * Find the position of a name like {@link java.util.Collections#binarySearch(List, Object)}: the index if the name is
+   * contained, otherwise (-(insertion point) - 1).
+   */
+  public int indexOf(String name) {
+    int low = 0;
+    int high = blocks.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = new Cursor(middle * BLOCK_SIZE).next().compareTo(name);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle * BLOCK_SIZE;
+      }
+    }
+    if (high < 0) {
+      return -1;
+    }
+    Cursor cursor = new Cursor(high * BLOCK_SIZE);
+    int end = Math.min(high * BLOCK_SIZE + BLOCK_SIZE, size);
+    for (int i = high * BLOCK_SIZE; i < end; ++i) {
+      int comparison = cursor.next().compareTo(name);
+      if (comparison == 0) {
+        return i;
+      }
+      if (comparison > 0) {
+        return -i - 1;
+      }
+    }
+    return -end - 1;
+  }
+
+  /**
+   * Resolve a layer name that is either unqualified or qualified with a mapset as in 'name@mapset'.
+   *
+   * @return the qualified name if the layer is contained in this mapset, null otherwise
+   */
+  public String resolve(String name) {
+    int at = name.indexOf('@');
+    String layer = name;
+    if (at >= 0) {
+      if (!name.substring(at + 1).equals(mapset)) {
+        return null;
+      }
+      layer = name.substring(0, at);
+    }
+    return contains(layer) ? layer + "@" + mapset : null;
+  }
+
+  /**
+   * All names in alphabetical order.
+   */
+  public Stream<String> stream() {
+    return stream(0);
+  }
+
+  /**
+   * The names starting with the given prefix.
+   */
+  public Stream<String> withPrefix(String prefix) {
+    int start = indexOf(prefix);
+    return stream(start < 0 ? -start - 1 : start).takeWhile(name -> name.startsWith(prefix));
+  }
+
+  /**
+   * The names matching the given glob pattern as understood by g.list, where '*' matches any number of characters,
+   * '?' a single character and '[...]' a character class. The literal prefix of the pattern is looked up using binary
+   * search.
+   */
+  public Stream<String> glob(String glob) {
+    Pattern pattern = compileGlob(glob);
+    return withPrefix(literalPrefix(glob)).filter(name -> pattern.matcher(name).matches());
+  }
+
+  /**
+   * The names completely matching the given regular expression.
+   */
+  public Stream<String> matching(Pattern pattern) {
+    return stream().filter(name -> pattern.matcher(name).matches());
+  }
+
+  /**
+   * Get up to limit names starting at the given offset.
+   */
+  public List<String> page(int offset, int limit) {
+    return stream(Math.min(Math.max(offset, 0), size)).limit(limit).collect(Collectors.toUnmodifiableList());
+  }
+
+  /**
+   * An unmodifiable list view of the names, decoding names as they are accessed.
+   */
+  public List<String> asList() {
+    return new NameList();
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return new Cursor(0);
+  }
+
+  @Override
+  public String toString() {
+    return "RasterLayerIndex of " + mapset + " (" + size + " layers)";
+  }
+
+  private Stream<String> stream(int from) {
+    Spliterator<String> spliterator = Spliterators.spliterator(new Cursor(from), size - from,
+      Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    return StreamSupport.stream(spliterator, false);
+  }
+
+  static Pattern compileGlob(String glob) {
+    StringBuilder regex = new StringBuilder();
+    int literalStart = 0;
+    for (int i = 0; i < glob.length(); ++i) {
+      char c = glob.charAt(i);
+      if (c == '*' || c == '?' || c == '[') {
+        if (literalStart < i) {
+          regex.append(Pattern.quote(glob.substring(literalStart, i)));
+        }
+        if (c == '*') {
+          regex.append(".*");
+        } else if (c == '?') {
+          regex.append('.');
+        } else {
+          int end = glob.indexOf(']', i + 1);
+          if (end < 0) {
+            throw new IllegalArgumentException("Unclosed character class in " + glob);
+          }
+          String chars = glob.substring(i + 1, end);
+          regex.append('[').append(chars.startsWith("!") ? "^" + chars.substring(1) : chars).append(']');
+          i = end;
+        }
+        literalStart = i + 1;
+      }
+    }
+    if (literalStart < glob.length()) {
+      regex.append(Pattern.quote(glob.substring(literalStart)));
+    }
+    return Pattern.compile(regex.toString());
+  }
+
+  private static String literalPrefix(String glob) {
+    for (int i = 0; i < glob.length(); ++i) {
+      char c = glob.charAt(i);
+      if (c == '*' || c == '?' || c == '[') {
+        return glob.substring(0, i);
+      }
+    }
+    return glob;
+  }
+
+  /**
+   * Decodes the names sequentially, starting at the first name of a block.
+   */
+  private class Cursor implements Iterator<String> {
+
+    private int position;
+
+    private int index;
+
+    private byte[] current = new byte[64];
+
+    Cursor(int from) {
+      index = from;
+      if (from < size) {
+        int block = from / BLOCK_SIZE;
+        position = blocks[block];
+        // skip to the requested name, decoding its predecessors within the block
+        for (int i = block * BLOCK_SIZE; i < from; ++i) {
+          decode();
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < size;
+    }
+
+    @Override
+    public String next() {
+      if (index >= size) {
+        throw new NoSuchElementException();
+      }
+      int length = decode();
+      ++index;
+      return new String(current, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private int decode() {
+      int prefix = readVarInt();
+      int suffix = readVarInt();
+      if (prefix + suffix > current.length) {
+        current = Arrays.copyOf(current, Math.max(prefix + suffix, current.length * 2));
+      }
+      System.arraycopy(data, position, current, prefix, suffix);
+      position += suffix;
+      return prefix + suffix;
+    }
+
+    private int readVarInt() {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = data[position++];
+        value |= (b & 0x7f) << shift;
+        shift += 7;
+      } while (b < 0);
+      return value;
+    }
+
+  }
+
+  private class NameList extends AbstractList<String> implements RandomAccess {
+
+    @Override
+    public String get(int index) {
+      return RasterLayerIndex.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Cursor(0);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return o instanceof String && RasterLayerIndex.this.contains((String) o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+      if (!(o instanceof String)) {
+        return -1;
+      }
+      return Math.max(RasterLayerIndex.this.indexOf((String) o), -1);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+      return indexOf(o);
+    }
+
+  }
+
+  /**
+   * A minimal growable byte array.
+   */
+  private static class ByteBuffer {
+
+    private byte[] bytes;
+
+    private int length;
+
+    ByteBuffer(int capacity) {
+      bytes = new byte[Math.max(capacity, 16)];
+    }
+
+    void writeVarInt(int value) {
+      while ((value & ~0x7f) != 0) {
+        write((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      write(value);
+    }
+
+    void write(int b) {
+      ensureCapacity(1);
+      bytes[length++] = (byte) b;
+    }
+
+    void write(byte[] source, int offset, int count) {
+      ensureCapacity(count);
+      System.arraycopy(source, offset, bytes, length, count);
+      length += count;
+    }
+
+    private void ensureCapacity(int count) {
+      if (length + count > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(length + count, bytes.length * 2));
+      }
+    }
+
+    byte[] toArray() {
+      return Arrays.copyOf(bytes, length);
+    }
+
+  }
+
+}
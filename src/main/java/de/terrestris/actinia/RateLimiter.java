@@ -0,0 +1,47 @@
+package de.terrestris.actinia;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket limiting the rate of requests a client sends to actinia. Requests beyond the rate are delayed, not
+ * rejected. The bucket starts full, so bursts up to its capacity are sent immediately.
+ */
+public class RateLimiter {
+
+  private final double permitsPerNano;
+
+  private final double capacity;
+
+  private double tokens;
+
+  private long lastRefill;
+
+  /**
+   * Create a limiter allowing the given number of requests per second on average and bursts of the given size.
+   */
+  public RateLimiter(double requestsPerSecond, int burst) {
+    if (requestsPerSecond <= 0 || burst < 1) {
+      throw new IllegalArgumentException("The rate must be positive and the burst at least 1.");
+    }
+    permitsPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+    capacity = burst;
+    tokens = burst;
+    lastRefill = System.nanoTime();
+  }
+
+  /**
+   * Take a token, returning the number of milliseconds the caller has to wait before it may send its request. Tokens
+   * may be reserved ahead of time, so waiting callers are served in order.
+   */
+  synchronized long reserve() {
+    long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+    lastRefill = now;
+    tokens -= 1;
+    if (tokens >= 0) {
+      return 0;
+    }
+    return (long) Math.ceil(-tokens / permitsPerNano / TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+}
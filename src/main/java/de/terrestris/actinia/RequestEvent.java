@@ -0,0 +1,102 @@
+package de.terrestris.actinia;
+
+import java.time.Duration;
+
+/**
+ * Describes a completed request. Response time, status code and bytes refer to the last attempt.
+ */
+public class RequestEvent {
+
+  private final ResourceType type;
+
+  private final int statusCode;
+
+  private final int attempts;
+
+  private final long bytes;
+
+  private final long responseNanos;
+
+  private final long parseNanos;
+
+  private final long totalNanos;
+
+  private final ActiniaException failure;
+
+  RequestEvent(ResourceType type, int statusCode, int attempts, long bytes, long responseNanos, long parseNanos,
+               long totalNanos, ActiniaException failure) {
+    this.type = type;
+    this.statusCode = statusCode;
+    this.attempts = attempts;
+    this.bytes = bytes;
+    this.responseNanos = responseNanos;
+    this.parseNanos = parseNanos;
+    this.totalNanos = totalNanos;
+    this.failure = failure;
+  }
+
+  public ResourceType getType() {
+    return type;
+  }
+
+  /**
+   * The HTTP status of the last response, 0 if no response was received.
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * The number of times the request was sent, 0 if it failed before it could be sent.
+   */
+  public int getAttempts() {
+    return attempts;
+  }
+
+  /**
+   * The number of response body bytes read.
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * The time from sending the request until the response headers arrived.
+   */
+  public Duration getResponseTime() {
+    return Duration.ofNanos(responseNanos);
+  }
+
+  /**
+   * The time spent reading and parsing the response body. As bodies are parsed while they are streamed, this includes
+   * waiting for the network.
+   */
+  public Duration getParseTime() {
+    return Duration.ofNanos(parseNanos);
+  }
+
+  /**
+   * The time from starting the request until it completed, including retries, rate limiting and backoff.
+   */
+  public Duration getTotalTime() {
+    return Duration.ofNanos(totalNanos);
+  }
+
+  /**
+   * Why the request failed, null if it was successful.
+   */
+  public ActiniaException getFailure() {
+    return failure;
+  }
+
+  public boolean isSuccessful() {
+    return failure == null;
+  }
+
+  @Override
+  public String toString() {
+    return type.getTag() + " " + (failure == null ? statusCode : "failed") + " in " + getTotalTime().toMillis() + "ms ("
+      + attempts + " attempts, " + bytes + " bytes)";
+  }
+
+}
@@ -0,0 +1,28 @@
+package de.terrestris.actinia;
+
+/**
+ * Receives events for every request the client sends, e.g. to collect metrics. All methods are called on the threads
+ * running the requests, so implementations must be thread safe and should return quickly. Exceptions thrown by a
+ * listener are logged and otherwise ignored.
+ */
+public interface RequestListener {
+
+  /**
+   * A request is about to be sent for the first time.
+   */
+  default void requestStarted(ResourceType type) {
+  }
+
+  /**
+   * A request is sent again after the given attempt failed with a transient error.
+   */
+  default void requestRetried(ResourceType type, int attempt, Throwable cause) {
+  }
+
+  /**
+   * A request completed, successfully or not. Every started request completes exactly once.
+   */
+  default void requestCompleted(RequestEvent event) {
+  }
+
+}
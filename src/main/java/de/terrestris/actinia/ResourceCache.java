@@ -0,0 +1,136 @@
+package de.terrestris.actinia;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A thread-safe LRU cache of parsed actinia responses whose entries expire according to a {@link CachePolicy}.
+ */
+class ResourceCache {
+
+  private final CachePolicy policy;
+
+  private final Map<Key, Entry> entries;
+
+  private long generation;
+
+  ResourceCache(CachePolicy policy) {
+    this.policy = policy;
+    entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > policy.getMaximumSize();
+      }
+    };
+  }
+
+  CachePolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Get a cached value, or null if it is missing or expired.
+   */
+  @SuppressWarnings("unchecked")
+  synchronized <T> T get(ResourceType type, String location, String mapset) {
+    Key key = new Key(type, location, mapset);
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expires - System.nanoTime() < 0) {
+      entries.remove(key);
+      return null;
+    }
+    return (T) entry.value;
+  }
+
+  /**
+   * The current generation, to be passed to put once a value was loaded.
+   */
+  synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Cache a value unless the cache was invalidated since the given generation was obtained, which means the value may
+   * already be stale.
+   */
+  synchronized void put(ResourceType type, String location, String mapset, Object value, long generation) {
+    if (generation != this.generation || !policy.isCached(type)) {
+      return;
+    }
+    Duration ttl = policy.getTtl(type);
+    long expires = ttl == null ? System.nanoTime() + Long.MAX_VALUE / 2 : System.nanoTime() + ttl.toNanos();
+    entries.put(new Key(type, location, mapset), new Entry(value, expires));
+  }
+
+  synchronized void invalidateAll() {
+    ++generation;
+    entries.clear();
+  }
+
+  synchronized void invalidate(ResourceType type) {
+    ++generation;
+    entries.keySet().removeIf(key -> key.type == type);
+  }
+
+  /**
+   * Invalidate everything cached for the given location, or for the given mapset of the location if mapset is not
+   * null. Invalidating a mapset also invalidates the mapset list of its location.
+   */
+  synchronized void invalidate(String location, String mapset) {
+    ++generation;
+    entries.keySet().removeIf(key -> Objects.equals(key.location, location)
+      && (mapset == null || Objects.equals(key.mapset, mapset) || key.type == ResourceType.MAPSETS));
+  }
+
+  private static final class Entry {
+
+    private final Object value;
+
+    private final long expires;
+
+    private Entry(Object value, long expires) {
+      this.value = value;
+      this.expires = expires;
+    }
+
+  }
+
+  private static final class Key {
+
+    private final ResourceType type;
+
+    private final String location;
+
+    private final String mapset;
+
+    private Key(ResourceType type, String location, String mapset) {
+      this.type = type;
+      this.location = location;
+      this.mapset = mapset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return type == key.type && Objects.equals(location, key.location) && Objects.equals(mapset, key.mapset);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(type, location, mapset);
+    }
+
+  }
+
+}
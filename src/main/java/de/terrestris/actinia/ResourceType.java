@@ -0,0 +1,31 @@
+package de.terrestris.actinia;
+
+/**
+ * The kinds of actinia resources the client requests.
+ */
+public enum ResourceType {
+
+  LOCATIONS("locations"),
+  MAPSETS("mapsets"),
+  RASTER_LAYERS("raster_layers"),
+  STRDS("strds"),
+  MODULES("modules"),
+  MODULE_DETAILS("module_details"),
+  PROCESSING("processing"),
+  STATUS("status"),
+  RESOURCE("resource");
+
+  private final String tag;
+
+  ResourceType(String tag) {
+    this.tag = tag;
+  }
+
+  /**
+   * A short name of the resource type, e.g. for logging or metrics.
+   */
+  public String getTag() {
+    return tag;
+  }
+
+}
@@ -0,0 +1,262 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the finished status of process chains in a directory, so running an identical chain again returns the
+ * earlier result instead of recomputing it. Chains are identified by a SHA-256 hash of their canonical JSON, i.e. with
+ * sorted keys and without webhooks, together with the actinia URL, location and mapset. Only finished processes are
+ * remembered, each for the given time to live, which should not exceed the time actinia keeps result resources.
+ * Expired results are removed when they are looked up, and storing a result removes all expired ones at most once a
+ * minute, so the directory does not grow with chains that are never run again.
+ * <p>
+ * The cache is opt-in, pass it to {@link ActiniaClient.Builder#resultCache(ResultCache)}. Several clients, also in
+ * different JVMs, may share a directory. Failures to read or write the directory are logged and treated as misses.
+ */
+@Log4j2
+public class ResultCache {
+
+  private static final String SUFFIX = ".json";
+
+  private static final long EVICTION_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+  private final Path directory;
+
+  private final Duration ttl;
+
+  private final AtomicLong lastEviction = new AtomicLong(System.nanoTime() - EVICTION_INTERVAL);
+
+  /**
+   * @param directory the directory to store the results in, created if missing
+   * @param ttl       how long a result is reused
+   */
+  public ResultCache(Path directory, Duration ttl) {
+    if (ttl.isNegative()) {
+      throw new IllegalArgumentException("The time to live must not be negative.");
+    }
+    this.directory = directory;
+    this.ttl = ttl;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  /**
+   * The number of results stored, including expired ones that were not evicted yet.
+   */
+  public int size() {
+    return entries().size();
+  }
+
+  /**
+   * Remove all results.
+   */
+  public void clear() {
+    for (Path entry : entries()) {
+      delete(entry);
+    }
+  }
+
+  /**
+   * Remove expired results. Returns the number of removed results.
+   */
+  public int evictExpired() {
+    int count = 0;
+    for (Path entry : entries()) {
+      try {
+        if (isExpired(JsonStreams.READER.readTree(Files.readAllBytes(entry)))) {
+          delete(entry);
+          ++count;
+        }
+      } catch (NoSuchFileException e) {
+        // removed concurrently
+      } catch (IOException e) {
+        log.debug("Removing unreadable result {}: {}", entry, e.getMessage());
+        delete(entry);
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Compute the key of a chain run in the given location and mapset.
+   */
+  static String key(String url, String location, String mapset, byte[] chain) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available.", e);
+    }
+    // ephemeral processes have no mapset
+    digest.update((url + "\n" + location + "\n" + (mapset == null ? "" : mapset) + "\n").getBytes(StandardCharsets.UTF_8));
+    try {
+      JsonNode tree = JsonStreams.READER.readTree(chain);
+      if (tree instanceof ObjectNode) {
+        ((ObjectNode) tree).remove("webhooks");
+      }
+      try (JsonGenerator generator = JsonStreams.FACTORY.createGenerator(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+        JsonStreams.writeCanonical(generator, tree);
+      }
+    } catch (IOException e) {
+      throw new ActiniaException("Unable to hash the process chain.", e);
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /**
+   * Look up the result of a chain. Returns null if there is no result or it expired.
+   */
+  ProcessStatus get(String key, ActiniaClient client, String location, String mapset) {
+    Path entry = directory.resolve(key + SUFFIX);
+    try {
+      JsonNode tree = JsonStreams.READER.readTree(Files.readAllBytes(entry));
+      if (isExpired(tree)) {
+        // a concurrent put may just have replaced it, which only costs a later miss
+        delete(entry);
+        return null;
+      }
+      byte[] document = JsonStreams.MAPPER.writeValueAsBytes(tree.get("status"));
+      StatusUpdate update = StatusUpdate.parse(new ByteArrayInputStream(document));
+      if (!"finished".equals(update.getStatus()) || update.getStatusUrl() == null) {
+        return null;
+      }
+      ProcessStatus status = new ProcessStatus(update.getStatusUrl(), client, location, mapset);
+      status.apply(update);
+      status.setCached(true);
+      return status;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Unable to read the cached result {}: {}", entry, e.getMessage());
+      log.trace("Stack trace:", e);
+      return null;
+    }
+  }
+
+  /**
+   * Store the result of a finished chain. The entry is replaced atomically where the file system supports it.
+   */
+  void put(String key, ProcessStatus status) {
+    long last = lastEviction.get();
+    long now = System.nanoTime();
+    if (now - last >= EVICTION_INTERVAL && lastEviction.compareAndSet(last, now)) {
+      evictExpired();
+    }
+    Path entry = directory.resolve(key + SUFFIX);
+    Path tmp = null;
+    try {
+      Files.createDirectories(directory);
+      tmp = Files.createTempFile(directory, key, ".tmp");
+      try (OutputStream out = Files.newOutputStream(tmp);
+           JsonGenerator generator = JsonStreams.FACTORY.createGenerator(out)) {
+        generator.writeStartObject();
+        generator.writeNumberField("expires", Instant.now().plus(ttl).toEpochMilli());
+        generator.writeFieldName("status");
+        writeStatus(generator, status);
+        generator.writeEndObject();
+      }
+      try {
+        Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      log.warn("Unable to cache the result of {}: {}", status.getUrl(), e.getMessage());
+      log.trace("Stack trace:", e);
+    } finally {
+      if (tmp != null) {
+        delete(tmp);
+      }
+    }
+  }
+
+  /**
+   * Write the fields of the status the client keeps in the format of an actinia status document.
+   */
+  private static void writeStatus(JsonGenerator generator, ProcessStatus status) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("status", status.getStatus());
+    generator.writeStringField("message", status.getMessage());
+    generator.writeStringField("resource_id", status.getResourceId());
+    if (status.getAcceptTimestamp() != null) {
+      generator.writeNumberField("accept_timestamp", toSeconds(status.getAcceptTimestamp()));
+    }
+    if (status.getTimestamp() != null) {
+      generator.writeNumberField("timestamp", toSeconds(status.getTimestamp()));
+    }
+    generator.writeObjectFieldStart("progress");
+    generator.writeNumberField("step", status.getStep());
+    generator.writeNumberField("num_of_steps", status.getNumberOfSteps());
+    generator.writeEndObject();
+    generator.writeObjectFieldStart("urls");
+    generator.writeStringField("status", status.getUrl());
+    generator.writeArrayFieldStart("resources");
+    for (String resource : status.getResources()) {
+      generator.writeString(resource);
+    }
+    generator.writeEndArray();
+    generator.writeEndObject();
+    generator.writeEndObject();
+  }
+
+  private static double toSeconds(Instant instant) {
+    return instant.getEpochSecond() + instant.getNano() / 1e9;
+  }
+
+  private static boolean isExpired(JsonNode tree) {
+    return tree.path("expires").asLong() <= System.currentTimeMillis();
+  }
+
+  private List<Path> entries() {
+    List<Path> entries = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return entries;
+    }
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      stream.forEach(entries::add);
+    } catch (IOException e) {
+      log.warn("Unable to list the cached results in {}: {}", directory, e.getMessage());
+    }
+    return entries;
+  }
+
+  private static void delete(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.debug("Unable to delete {}: {}", path, e.getMessage());
+    }
+  }
+
+}
@@ -0,0 +1,80 @@
+package de.terrestris.actinia;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Configures how often idempotent requests (everything but process chain submissions) are retried after transient
+ * failures, i.e. I/O errors, timeouts and 429, 502, 503 or 504 responses. The delay between attempts grows
+ * exponentially and is fully jittered, so that many clients do not retry at the same time. Instances are immutable,
+ * use the with* methods to derive a modified policy.
+ */
+public class RetryPolicy {
+
+  private final int maximumAttempts;
+
+  private final Duration initialBackoff;
+
+  private final Duration maximumBackoff;
+
+  private RetryPolicy(int maximumAttempts, Duration initialBackoff, Duration maximumBackoff) {
+    this.maximumAttempts = maximumAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maximumBackoff = maximumBackoff;
+  }
+
+  /**
+   * The default policy makes up to three attempts, waiting up to 200ms before the second and up to 400ms before the
+   * third one.
+   */
+  public static RetryPolicy defaults() {
+    return new RetryPolicy(3, Duration.ofMillis(200), Duration.ofSeconds(10));
+  }
+
+  /**
+   * A policy that never retries.
+   */
+  public static RetryPolicy none() {
+    return defaults().withMaximumAttempts(1);
+  }
+
+  /**
+   * Derive a policy making at most the given number of attempts, including the first one.
+   */
+  public RetryPolicy withMaximumAttempts(int maximumAttempts) {
+    if (maximumAttempts < 1) {
+      throw new IllegalArgumentException("At least one attempt is needed.");
+    }
+    return new RetryPolicy(maximumAttempts, initialBackoff, maximumBackoff);
+  }
+
+  /**
+   * Derive a policy with the given upper bound of the delay before the first retry, which doubles with every attempt
+   * up to the maximum backoff.
+   */
+  public RetryPolicy withBackoff(Duration initialBackoff, Duration maximumBackoff) {
+    return new RetryPolicy(maximumAttempts, initialBackoff, maximumBackoff);
+  }
+
+  public int getMaximumAttempts() {
+    return maximumAttempts;
+  }
+
+  public Duration getInitialBackoff() {
+    return initialBackoff;
+  }
+
+  public Duration getMaximumBackoff() {
+    return maximumBackoff;
+  }
+
+  /**
+   * A random delay in milliseconds before the next attempt, given the number of attempts made so far.
+   */
+  long backoffMillis(int attempts) {
+    double bound = initialBackoff.toMillis() * Math.pow(2, attempts - 1);
+    bound = Math.min(bound, maximumBackoff.toMillis());
+    return (long) (ThreadLocalRandom.current().nextDouble() * bound);
+  }
+
+}
@@ -0,0 +1,44 @@
+package de.terrestris.actinia;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key, so that only the first caller starts the call and everyone else
+ * shares its result until it completes.
+ */
+class SingleFlight {
+
+  private final ConcurrentMap<String, CompletableFuture<?>> calls = new ConcurrentHashMap<>();
+
+  /**
+   * Start the call unless a call for the same key is already in flight. Each caller gets its own copy of the result,
+   * so cancelling it does not affect other callers.
+   */
+  @SuppressWarnings("unchecked")
+  <T> CompletableFuture<T> execute(String key, Supplier<CompletableFuture<T>> call) {
+    CompletableFuture<T> promise = new CompletableFuture<>();
+    CompletableFuture<T> existing = (CompletableFuture<T>) calls.putIfAbsent(key, promise);
+    if (existing != null) {
+      return existing.copy();
+    }
+    CompletableFuture<T> future;
+    try {
+      future = call.get();
+    } catch (RuntimeException e) {
+      future = CompletableFuture.failedFuture(e);
+    }
+    future.whenComplete((value, throwable) -> {
+      calls.remove(key, promise);
+      if (throwable != null) {
+        promise.completeExceptionally(throwable);
+      } else {
+        promise.complete(value);
+      }
+    });
+    return promise.copy();
+  }
+
+}
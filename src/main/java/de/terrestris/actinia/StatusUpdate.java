@@ -0,0 +1,172 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The fields of an actinia status document the client keeps. They are read with a streaming parser that skips process
+ * logs, results and timing information and stops as soon as all fields were seen.
+ */
+class StatusUpdate {
+
+  private static final int FIELD_COUNT = 7;
+
+  private String status;
+
+  private String message;
+
+  private String resourceId;
+
+  private String statusUrl;
+
+  private List<String> resources;
+
+  private int step;
+
+  private int numberOfSteps;
+
+  private Instant acceptTimestamp;
+
+  private Instant timestamp;
+
+  static StatusUpdate parse(InputStream in) throws IOException {
+    StatusUpdate update = new StatusUpdate();
+    try (JsonParser parser = JsonStreams.FACTORY.createParser(in)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new ActiniaException("Status response was not a JSON object.");
+      }
+      int seen = 0;
+      while (seen < FIELD_COUNT && parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.currentName();
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_NULL) {
+          continue;
+        }
+        switch (name) {
+          case "status":
+            update.status = parser.getValueAsString();
+            break;
+          case "message":
+            update.message = parser.getValueAsString();
+            break;
+          case "resource_id":
+            update.resourceId = parser.getValueAsString();
+            break;
+          case "accept_timestamp":
+            update.acceptTimestamp = toInstant(parser.getValueAsDouble());
+            break;
+          case "timestamp":
+            update.timestamp = toInstant(parser.getValueAsDouble());
+            break;
+          case "progress":
+            update.parseProgress(parser);
+            break;
+          case "urls":
+            update.parseUrls(parser);
+            break;
+          default:
+            parser.skipChildren();
+            continue;
+        }
+        ++seen;
+      }
+    }
+    return update;
+  }
+
+  private void parseProgress(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.currentName();
+      parser.nextToken();
+      if (name.equals("step")) {
+        step = parser.getValueAsInt();
+      } else if (name.equals("num_of_steps")) {
+        numberOfSteps = parser.getValueAsInt();
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private void parseUrls(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.currentName();
+      parser.nextToken();
+      if (name.equals("status")) {
+        statusUrl = parser.getValueAsString();
+      } else if (name.equals("resources") && parser.currentToken() == JsonToken.START_ARRAY) {
+        List<String> urls = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            urls.add(parser.getText());
+          } else {
+            parser.skipChildren();
+          }
+        }
+        resources = Collections.unmodifiableList(urls);
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private static Instant toInstant(double seconds) {
+    long whole = (long) Math.floor(seconds);
+    return Instant.ofEpochSecond(whole, (long) ((seconds - whole) * 1e9));
+  }
+
+  String getStatus() {
+    return status;
+  }
+
+  String getMessage() {
+    return message;
+  }
+
+  String getResourceId() {
+    return resourceId;
+  }
+
+  String getStatusUrl() {
+    return statusUrl;
+  }
+
+  /**
+   * The URLs of the exported results, null if the document did not list them.
+   */
+  List<String> getResources() {
+    return resources;
+  }
+
+  int getStep() {
+    return step;
+  }
+
+  int getNumberOfSteps() {
+    return numberOfSteps;
+  }
+
+  Instant getAcceptTimestamp() {
+    return acceptTimestamp;
+  }
+
+  Instant getTimestamp() {
+    return timestamp;
+  }
+
+}
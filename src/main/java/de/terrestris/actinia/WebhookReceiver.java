@@ -0,0 +1,236 @@
+package de.terrestris.actinia;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An embedded HTTP server receiving the webhooks actinia calls while a process chain runs, so finished processes are
+ * noticed without polling. Pass {@link #getWebhooks()} when running a process and {@link #watch(ProcessStatus)} the
+ * returned status:
+ * <pre>
+ * try (ProcessWatcher watcher = new ProcessWatcher().setInitialDelay(Duration.ofMinutes(1));
+ *      WebhookReceiver receiver = new WebhookReceiver(new InetSocketAddress(8090), "http://myhost:8090", watcher)) {
+ *   ProcessStatus status = client.runProcess(location, mapset, modules, parameters, receiver.getWebhooks());
+ *   receiver.watch(status).join();
+ * }
+ * </pre>
+ * actinia must be able to reach the receiver under the public URL. As webhooks may get lost, the processes are
+ * additionally polled by the fallback watcher, whose polling stops once the finished webhook arrived. Configure it with
+ * a long initial delay to keep the status traffic low.
+ */
+@Log4j2
+public class WebhookReceiver implements AutoCloseable {
+
+  private static final int MAXIMUM_EARLY_UPDATES = 1000;
+
+  private final HttpServer server;
+
+  private final ProcessWatcher fallback;
+
+  private final Webhooks webhooks;
+
+  private final ConcurrentMap<String, Receipt> receipts = new ConcurrentHashMap<>();
+
+  /**
+   * Updates that arrived before their process was watched, e.g. because the process finished before the response to
+   * its submission was read.
+   */
+  private final Map<String, StatusUpdate> earlyUpdates = new LinkedHashMap<>(16, 0.75f, false) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, StatusUpdate> eldest) {
+      return size() > MAXIMUM_EARLY_UPDATES;
+    }
+  };
+
+  /**
+   * Start a receiver.
+   *
+   * @param address   the address to listen on, use port 0 for a random port
+   * @param publicUrl the URL actinia reaches the receiver under, null to use the address, which must not be a wildcard
+   *                  address then
+   * @param fallback  the watcher to poll the processes with in case webhooks get lost, may be null
+   */
+  public WebhookReceiver(InetSocketAddress address, String publicUrl, ProcessWatcher fallback) {
+    if (publicUrl == null && (address.getAddress() == null || address.getAddress().isAnyLocalAddress())) {
+      throw new IllegalArgumentException("A public URL is required when listening on " + address + ".");
+    }
+    this.fallback = fallback;
+    try {
+      server = HttpServer.create(address, 0);
+    } catch (IOException e) {
+      throw new ActiniaException("Unable to start the webhook receiver.", e);
+    }
+    // an unguessable path, so only the actinia instance the webhooks were passed to can complete processes
+    String path = "/actinia-webhooks/" + UUID.randomUUID();
+    server.createContext(path, this::handle);
+    server.start();
+    if (publicUrl == null) {
+      publicUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+    if (publicUrl.endsWith("/")) {
+      publicUrl = publicUrl.substring(0, publicUrl.length() - 1);
+    }
+    webhooks = new Webhooks(publicUrl + path + "/update", publicUrl + path + "/finished");
+  }
+
+  /**
+   * The webhooks to pass when running a process.
+   */
+  public Webhooks getWebhooks() {
+    return webhooks;
+  }
+
+  /**
+   * The address the receiver listens on.
+   */
+  public InetSocketAddress getAddress() {
+    return server.getAddress();
+  }
+
+  /**
+   * Watch a process submitted with the webhooks of this receiver until it reaches a terminal state. The status is
+   * updated with each received webhook. The future completes with the status once it is 'finished', 'error' or
+   * 'terminated', or fails if the fallback watcher fails.
+   */
+  public CompletableFuture<ProcessStatus> watch(ProcessStatus status) {
+    if (isTerminal(status.getStatus())) {
+      return CompletableFuture.completedFuture(status);
+    }
+    if (status.getResourceId() == null) {
+      throw new IllegalArgumentException("The process has no resource id yet.");
+    }
+    Receipt created = new Receipt(status);
+    Receipt receipt;
+    StatusUpdate early;
+    synchronized (earlyUpdates) {
+      Receipt existing = receipts.putIfAbsent(status.getResourceId(), created);
+      receipt = existing == null ? created : existing;
+      early = earlyUpdates.remove(status.getResourceId());
+    }
+    // started outside the map operation, as the fallback may complete the receipt right away, which removes it
+    if (receipt == created) {
+      created.start();
+    }
+    if (early != null) {
+      receipt.receive(early);
+    }
+    return receipt.watched.copy();
+  }
+
+  /**
+   * The number of processes currently being watched.
+   */
+  public int getWatchedCount() {
+    return receipts.size();
+  }
+
+  /**
+   * Stop the server. Pending futures are cancelled.
+   */
+  @Override
+  public void close() {
+    server.stop(0);
+    receipts.values().forEach(receipt -> receipt.future.cancel(false));
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange; InputStream in = exchange.getRequestBody()) {
+      // actinia checks that the webhooks are reachable before accepting a process chain
+      if (!exchange.getRequestMethod().equals("POST")) {
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+      StatusUpdate update;
+      try {
+        update = StatusUpdate.parse(in);
+      } catch (IOException | ActiniaException e) {
+        log.debug("Ignoring invalid webhook call: {}", e.getMessage());
+        exchange.sendResponseHeaders(400, -1);
+        return;
+      }
+      exchange.sendResponseHeaders(200, -1);
+      if (update.getResourceId() == null) {
+        return;
+      }
+      Receipt receipt;
+      synchronized (earlyUpdates) {
+        receipt = receipts.get(update.getResourceId());
+        if (receipt == null) {
+          earlyUpdates.merge(update.getResourceId(), update, (previous, next) -> isTerminal(previous.getStatus()) ? previous : next);
+        }
+      }
+      if (receipt != null) {
+        receipt.receive(update);
+      }
+    }
+  }
+
+  private static boolean isTerminal(String state) {
+    return state != null && ProcessWatcher.TERMINAL_STATES.contains(state);
+  }
+
+  /**
+   * A watched process.
+   */
+  private class Receipt {
+
+    private final ProcessStatus status;
+
+    private final CompletableFuture<ProcessStatus> future = new CompletableFuture<>();
+
+    /**
+     * Completes after the receipt was removed, so callers never see a completed process as still watched.
+     */
+    private final CompletableFuture<ProcessStatus> watched;
+
+    Receipt(ProcessStatus status) {
+      this.status = status;
+      watched = future.whenComplete((result, throwable) -> {
+        receipts.remove(status.getResourceId(), this);
+        if (fallback != null) {
+          fallback.stopWatching(status);
+        }
+      });
+    }
+
+    void start() {
+      if (fallback != null) {
+        fallback.watch(status).whenComplete((result, throwable) -> {
+          if (throwable != null) {
+            future.completeExceptionally(throwable);
+          } else {
+            future.complete(result);
+          }
+        });
+      }
+    }
+
+    void receive(StatusUpdate update) {
+      if (future.isDone()) {
+        return;
+      }
+      if (status.getClient() != null) {
+        status.getClient().apply(status, update);
+      } else {
+        status.apply(update);
+      }
+      if (isTerminal(status.getStatus())) {
+        // complete on another thread, so callbacks do not block the server
+        future.completeAsync(() -> status);
+      }
+    }
+
+  }
+
+}
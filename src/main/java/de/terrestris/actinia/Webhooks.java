@@ -0,0 +1,51 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * The URLs actinia calls while a process chain runs. actinia POSTs the status document of the process to the update
+ * URL whenever the status changes and to the finished URL once the process ended.
+ */
+public class Webhooks {
+
+  private final String update;
+
+  private final String finished;
+
+  /**
+   * @param update   the URL called on status changes, may be null
+   * @param finished the URL called once the process ended
+   */
+  public Webhooks(String update, String finished) {
+    if (finished == null) {
+      throw new IllegalArgumentException("The finished webhook is required.");
+    }
+    this.update = update;
+    this.finished = finished;
+  }
+
+  public String getUpdate() {
+    return update;
+  }
+
+  public String getFinished() {
+    return finished;
+  }
+
+  void write(JsonGenerator generator) throws IOException {
+    generator.writeObjectFieldStart("webhooks");
+    if (update != null) {
+      generator.writeStringField("update", update);
+    }
+    generator.writeStringField("finished", finished);
+    generator.writeEndObject();
+  }
+
+  @Override
+  public String toString() {
+    return "Webhooks update=" + update + " finished=" + finished;
+  }
+
+}
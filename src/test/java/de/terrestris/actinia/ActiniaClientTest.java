@@ -1,11 +1,21 @@
 package de.terrestris.actinia;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 public class ActiniaClientTest {
 
@@ -23,6 +33,154 @@ public class ActiniaClientTest {
     Assertions.assertFalse(locations.isEmpty());
   }
 
+  @Test
+  public void testGettingLocationsAsync() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub(3, 4, 250)) {
+      ActiniaClient client = stub.newClient();
+      CompletableFuture<List<Location>> locations = client.getLocationsAsync();
+      CompletableFuture<List<String>> layers = client.getRasterLayersAsync("location_1", "mapset_1");
+      Assertions.assertEquals(3, locations.join().size());
+      Assertions.assertEquals(250, layers.join().size());
+    }
+  }
+
+  @Test
+  public void testGettingCatalogOffline() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub(3, 4, 250)) {
+      ActiniaClient client = stub.newClient();
+      Assertions.assertEquals(3, client.getLocations().size());
+      Assertions.assertEquals(4, client.getMapsets("location_0").size());
+      List<String> layers = client.getRasterLayers("location_2", "mapset_3");
+      Assertions.assertEquals(250, layers.size());
+      Assertions.assertEquals("raster_00249", layers.get(249));
+      Assertions.assertEquals(List.of("strds_0", "strds_1"), client.getSpaceTimeRasterDatasets("location_1", "mapset_0"));
+    }
+  }
+
+  @Test
+  public void testAuthentication() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub()) {
+      ActiniaClient client = stub.newClient();
+      client.getLocations();
+      Assertions.assertEquals(1, stub.getRequestCount());
+      client.setPreemptiveAuthentication(false);
+      Assertions.assertEquals(2, client.getMapsets("location_0").size());
+      Assertions.assertEquals(3, stub.getRequestCount());
+    }
+  }
+
+  @Test
+  public void testAsyncFailures() throws IOException {
+    ActiniaClient client;
+    try (ActiniaStub stub = new ActiniaStub()) {
+      client = stub.newClient();
+    }
+    // failures complete the future exceptionally with an ActiniaException, the blocking calls rethrow it
+    CompletionException failure = Assertions.assertThrows(CompletionException.class, () -> client.getLocationsAsync().join());
+    Assertions.assertInstanceOf(ActiniaException.class, failure.getCause());
+    Assertions.assertThrows(ActiniaException.class, client::getLocations);
+  }
+
+  @Test
+  public void testCoalescingIdenticalRequests() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub(3, 4, 250).setLatency(Duration.ofMillis(100))) {
+      ActiniaClient client = stub.newClient();
+      Module module = client.getModule("r.slope.aspect");
+      int requests = stub.getRequestCount();
+      List<CompletableFuture<List<String>>> layers = new ArrayList<>();
+      for (int i = 0; i < 10; ++i) {
+        layers.add(client.getRasterLayersAsync("location_0", "mapset_0"));
+      }
+      layers.forEach(future -> Assertions.assertEquals(250, future.join().size()));
+      Assertions.assertEquals(requests + 1, stub.getRequestCount());
+
+      requests = stub.getRequestCount();
+      List<CompletableFuture<Module>> details = new ArrayList<>();
+      for (int i = 0; i < 10; ++i) {
+        details.add(client.updateDetailsAsync(module));
+      }
+      details.forEach(CompletableFuture::join);
+      Assertions.assertEquals(requests + 1, stub.getRequestCount());
+      Assertions.assertEquals(2, module.getInputParameters().size());
+    }
+  }
+
+  @Test
+  public void testPrefetchingModuleDetails() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub().setModules(30).setLatency(Duration.ofMillis(10))) {
+      ActiniaClient client = stub.newClient();
+      client.getModules();
+      int requests = stub.getRequestCount();
+      client.prefetchModuleDetailsAsync(null, 3).join();
+      Assertions.assertEquals(requests + 30, stub.getRequestCount());
+      Assertions.assertTrue(stub.getMaxConcurrentRequests() <= 3, "max concurrent was " + stub.getMaxConcurrentRequests());
+      for (Module module : client.getModules()) {
+        Assertions.assertFalse(module.getInputParameters().isEmpty(), module.getName());
+      }
+      client.prefetchModuleDetails();
+      Assertions.assertEquals(requests + 30, stub.getRequestCount(), "loaded details must not be fetched again");
+      Assertions.assertThrows(ActiniaException.class, () -> client.prefetchModuleDetails(List.of("no.such.module")));
+    }
+  }
+
+  @Test
+  public void testAddingParametersKeepsOtherSideUnloaded() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub()) {
+      ActiniaClient client = stub.newClient();
+      Module module = client.getModule("r.slope.aspect");
+      module.addInputParameter(new Parameter(JsonStreams.READER.readTree(
+        "{\"name\": \"extra\", \"description\": \"\", \"optional\": true, \"schema\": {\"type\": \"string\"}}")));
+      Assertions.assertFalse(module.hasDetails());
+      int requests = stub.getRequestCount();
+      Assertions.assertFalse(module.getOutputParameters().isEmpty());
+      Assertions.assertEquals(requests + 1, stub.getRequestCount());
+      Assertions.assertTrue(module.hasDetails());
+      Assertions.assertEquals(List.of("extra"), module.getInputParameters().stream().map(Parameter::getName).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void testRunningDropsUnknownParameters() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub()) {
+      ActiniaClient client = stub.newClient();
+      List<Module> modules = List.of(client.getModule("g.region"), client.getModule("r.slope.aspect"));
+      List<Map<String, String>> values = List.of(Map.of("raster", "elevation", "unknown", "value"),
+        Map.of("elevation", "elevation", "slope", "slope"));
+      ProcessStatus status = client.runProcess("location_0", "mapset_0", modules, values);
+      JsonNode inputs = stub.getChain(status.getResourceId()).get("list").get(0).get("inputs");
+      Assertions.assertEquals(1, inputs.size());
+      Assertions.assertEquals("raster", inputs.get(0).get("param").asText());
+    }
+  }
+
+  @Test
+  public void testBuilderTimeouts() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub().setLatency(Duration.ofMillis(500))) {
+      ActiniaClient impatient = stub.clientBuilder()
+        .retryPolicy(RetryPolicy.none())
+        .requestTimeout(Duration.ofSeconds(10))
+        .requestTimeout(ResourceType.LOCATIONS, Duration.ofMillis(50))
+        .build();
+      long start = System.nanoTime();
+      ActiniaException e = Assertions.assertThrows(ActiniaException.class, impatient::getLocations);
+      Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(450), "the request did not time out");
+      Assertions.assertInstanceOf(HttpTimeoutException.class, e.getCause());
+      // other resource types use the default timeout
+      Assertions.assertEquals(2, impatient.getMapsets("location_0").size());
+    }
+  }
+
+  @Test
+  public void testBuilderHttpVersion() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub()) {
+      stub.newClient().getLocations();
+      Assertions.assertEquals("h2c", stub.getLastRequestHeader("Upgrade"));
+      ActiniaClient http11 = stub.clientBuilder().version(HttpClient.Version.HTTP_1_1).build();
+      http11.getLocations();
+      Assertions.assertNull(stub.getLastRequestHeader("Upgrade"), "HTTP/1.1 must not ask for an upgrade");
+    }
+  }
+
   @Test
   public void testTrailingSlash() {
     List<Location> locations1 = client1.getLocations();
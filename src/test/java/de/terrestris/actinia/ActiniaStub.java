@@ -0,0 +1,744 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * An in-process actinia emulator serving a generated catalog, module descriptions and process jobs, so client
+ * throughput, concurrency and polling behaviour can be tested offline. Latency, failing requests and the duration of
+ * job steps can be configured while the stub is running.
+ * <p>
+ * Locations are named location_0 .. location_n, mapsets mapset_0 .. mapset_n, raster layers raster_00000 .. and space
+ * time raster datasets strds_0 .. Raster layers can be filtered using the pattern query parameter. Jobs are accepted
+ * for one step duration, then run one step per step duration and finish, or end with an error if their chain contains
+ * the failing module. Finished jobs list one result resource per exported output, or per step if nothing is exported, which
+ * can be downloaded using range requests conditioned on their ETag. If the chain sets webhooks, the update webhook is called once the job runs and the finished
+ * webhook once it ended.
+ */
+class ActiniaStub implements AutoCloseable {
+
+  private final HttpServer server;
+
+  private final ExecutorService executor;
+
+  private final ScheduledExecutorService webhookScheduler;
+
+  private final HttpClient webhookClient = HttpClient.newHttpClient();
+
+  private volatile int locations;
+
+  private volatile int mapsets;
+
+  private volatile int rasterLayers;
+
+  private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+  private final AtomicInteger requests = new AtomicInteger();
+
+  private final AtomicInteger running = new AtomicInteger();
+
+  private final AtomicInteger maxRunning = new AtomicInteger();
+
+  private volatile Headers lastRequestHeaders;
+
+  private final ThreadLocal<Boolean> released = ThreadLocal.withInitial(() -> false);
+
+  private final AtomicInteger failNext = new AtomicInteger();
+
+  private volatile int spaceTimeDatasets = 2;
+
+  private volatile int modules = 20;
+
+  private final Set<String> removedModules = ConcurrentHashMap.newKeySet();
+
+  private volatile Duration latency = Duration.ZERO;
+
+  private volatile double errorRate;
+
+  private volatile int errorStatus = 503;
+
+  private volatile Duration stepDuration = Duration.ofMillis(50);
+
+  private volatile Duration acceptedEarlier = Duration.ZERO;
+
+  private volatile String failingModule = "stub.fail";
+
+  private volatile int resourceSize = 64 * 1024;
+
+  private final AtomicInteger interruptDownloads = new AtomicInteger();
+
+  private final AtomicInteger rangeRequests = new AtomicInteger();
+
+  private final AtomicInteger maxActiveJobs = new AtomicInteger();
+
+  private final List<String> deletedMapsets = new CopyOnWriteArrayList<>();
+
+  /**
+   * Start a stub with a small catalog of two locations with two mapsets holding ten raster layers each.
+   */
+  ActiniaStub() throws IOException {
+    this(2, 2, 10);
+  }
+
+  /**
+   * Start a stub with the given catalog size.
+   */
+  ActiniaStub(int locations, int mapsetsPerLocation, int rasterLayersPerMapset) throws IOException {
+    this.locations = locations;
+    this.mapsets = mapsetsPerLocation;
+    this.rasterLayers = rasterLayersPerMapset;
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    executor = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "actinia-stub");
+      thread.setDaemon(true);
+      return thread;
+    });
+    webhookScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "actinia-stub-webhooks");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  /**
+   * The base URL to pass to the client.
+   */
+  String getUrl() {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+  }
+
+  /**
+   * Start building a client of the stub that retries without noticeable backoff.
+   */
+  ActiniaClient.Builder clientBuilder() {
+    return ActiniaClient.builder(getUrl())
+      .credentials("user", "password")
+      .retryPolicy(RetryPolicy.defaults().withBackoff(Duration.ofMillis(1), Duration.ofMillis(5)));
+  }
+
+  /**
+   * Create a client of the stub that retries without noticeable backoff.
+   */
+  ActiniaClient newClient() {
+    return clientBuilder().build();
+  }
+
+  /**
+   * Create a watcher polling often enough for the step durations of the stub.
+   */
+  static ProcessWatcher newWatcher() {
+    return new ProcessWatcher().setInitialDelay(Duration.ofMillis(10)).setMaximumDelay(Duration.ofMillis(50));
+  }
+
+  /**
+   * Change the size of the catalog.
+   */
+  ActiniaStub setCatalogSize(int locations, int mapsetsPerLocation, int rasterLayersPerMapset) {
+    this.locations = locations;
+    this.mapsets = mapsetsPerLocation;
+    this.rasterLayers = rasterLayersPerMapset;
+    return this;
+  }
+
+  /**
+   * Set the number of space time raster datasets per mapset, defaults to 2.
+   */
+  ActiniaStub setSpaceTimeDatasets(int spaceTimeDatasets) {
+    this.spaceTimeDatasets = spaceTimeDatasets;
+    return this;
+  }
+
+  /**
+   * Set the number of modules, defaults to 20. g.region, g.mapsets, g.copy, r.mapcalc, r.slope.aspect and the failing
+   * module are always included unless removed.
+   */
+  ActiniaStub setModules(int modules) {
+    this.modules = modules;
+    return this;
+  }
+
+  /**
+   * Leave a module out of the module list, e.g. to emulate a server that does not offer it.
+   */
+  ActiniaStub removeModule(String name) {
+    removedModules.add(name);
+    return this;
+  }
+
+  /**
+   * Delay every response by the given duration.
+   */
+  ActiniaStub setLatency(Duration latency) {
+    this.latency = latency;
+    return this;
+  }
+
+  /**
+   * Fail the given fraction of requests with the error status.
+   */
+  ActiniaStub setErrorRate(double errorRate) {
+    this.errorRate = errorRate;
+    return this;
+  }
+
+  /**
+   * Set the status failed requests respond with, defaults to 503.
+   */
+  ActiniaStub setErrorStatus(int errorStatus) {
+    this.errorStatus = errorStatus;
+    return this;
+  }
+
+  /**
+   * Fail the next count requests with the error status.
+   */
+  ActiniaStub failNext(int count) {
+    failNext.set(count);
+    return this;
+  }
+
+  /**
+   * Make jobs report an accept timestamp earlier by the given duration, as if they had been running for that long.
+   */
+  ActiniaStub setAcceptedEarlier(Duration acceptedEarlier) {
+    this.acceptedEarlier = acceptedEarlier;
+    return this;
+  }
+
+  /**
+   * Set the time a job stays in each state, defaults to 50ms.
+   */
+  ActiniaStub setStepDuration(Duration stepDuration) {
+    this.stepDuration = stepDuration;
+    return this;
+  }
+
+  /**
+   * Set the module that makes a job end with an error, defaults to stub.fail.
+   */
+  ActiniaStub setFailingModule(String failingModule) {
+    this.failingModule = failingModule;
+    return this;
+  }
+
+  /**
+   * Set the size of the result resources of jobs, defaults to 64 KiB.
+   */
+  ActiniaStub setResourceSize(int resourceSize) {
+    this.resourceSize = resourceSize;
+    return this;
+  }
+
+  /**
+   * Drop the connection of the next count downloads after half of the response body.
+   */
+  ActiniaStub interruptNextDownloads(int count) {
+    interruptDownloads.set(count);
+    return this;
+  }
+
+  /**
+   * The number of downloads that requested a range so far.
+   */
+  int getRangeRequestCount() {
+    return rangeRequests.get();
+  }
+
+  /**
+   * The content of a result resource.
+   */
+  byte[] resourceContent(String name) {
+    byte[] content = new byte[resourceSize];
+    int seed = name.hashCode();
+    for (int i = 0; i < content.length; ++i) {
+      content[i] = (byte) (i * 31 + seed);
+    }
+    return content;
+  }
+
+  /**
+   * The number of requests received so far, including failed ones.
+   */
+  int getRequestCount() {
+    return requests.get();
+  }
+
+  /**
+   * A header of the request received last, or null if it did not have the header.
+   */
+  String getLastRequestHeader(String name) {
+    Headers headers = lastRequestHeaders;
+    return headers == null ? null : headers.getFirst(name);
+  }
+
+  /**
+   * The highest number of requests that were handled at the same time.
+   */
+  int getMaxConcurrentRequests() {
+    return maxRunning.get();
+  }
+
+  /**
+   * The number of process chains submitted so far.
+   */
+  int getJobCount() {
+    return jobs.size();
+  }
+
+  /**
+   * Forget all submitted jobs, e.g. between benchmark iterations.
+   */
+  void clearJobs() {
+    jobs.clear();
+  }
+
+  /**
+   * The highest number of jobs that were accepted or running at the same time, counted when jobs are submitted.
+   */
+  int getMaxActiveJobs() {
+    return maxActiveJobs.get();
+  }
+
+  /**
+   * The names of the mapsets deleted so far, in order.
+   */
+  List<String> getDeletedMapsets() {
+    return List.copyOf(deletedMapsets);
+  }
+
+  /**
+   * The process chain a job was submitted with.
+   */
+  JsonNode getChain(String resourceId) {
+    return jobs.get(resourceId).chain;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+    webhookScheduler.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    released.set(false);
+    lastRequestHeaders = exchange.getRequestHeaders();
+    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+    try (exchange) {
+      byte[] body = exchange.getRequestBody().readAllBytes();
+      if (!latency.isZero()) {
+        Thread.sleep(latency.toMillis());
+      }
+      if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+        exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"actinia\"");
+        respond(exchange, 401, error("Unauthorized access"));
+        return;
+      }
+      if (failNext.getAndUpdate(count -> Math.max(count - 1, 0)) > 0
+        || ThreadLocalRandom.current().nextDouble() < errorRate) {
+        respond(exchange, errorStatus, error("Injected failure"));
+        return;
+      }
+      route(exchange, body);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Send the response headers. The request stops counting as running before, as the client may send its next request
+   * as soon as it got the response.
+   */
+  private void sendResponseHeaders(HttpExchange exchange, int status, long length) throws IOException {
+    release();
+    exchange.sendResponseHeaders(status, length);
+  }
+
+  private void release() {
+    // a request is handled on a single thread
+    if (!released.get()) {
+      released.set(true);
+      running.decrementAndGet();
+    }
+  }
+
+  private void route(HttpExchange exchange, byte[] body) throws IOException {
+    String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+    if (path.length == 2 && path[0].equals("latest") && path[1].equals("locations")) {
+      respond(exchange, 200, listing("projects", "success", names("location_%d", locations)));
+    } else if (path.length >= 4 && path[0].equals("latest") && path[1].equals("locations")) {
+      locationResource(exchange, path, body);
+    } else if (path.length == 2 && path[0].equals("latest") && path[1].equals("modules")) {
+      // the ETag changes with the module list
+      String etag = "\"stub-modules-" + Integer.toHexString(moduleNames().hashCode()) + "\"";
+      if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        sendResponseHeaders(exchange, 304, -1);
+        return;
+      }
+      exchange.getResponseHeaders().set("ETag", etag);
+      respond(exchange, 200, moduleList());
+    } else if (path.length == 3 && path[0].equals("latest") && path[1].equals("modules")) {
+      respond(exchange, 200, moduleDetails(path[2]));
+    } else if (path.length == 3 && path[0].equals("resources") && jobs.containsKey(path[2])) {
+      respond(exchange, 200, jobs.get(path[2]).status());
+    } else if (path.length == 4 && path[0].equals("resources") && jobs.containsKey(path[2])) {
+      download(exchange, path[3]);
+    } else {
+      respond(exchange, 404, error("Not found"));
+    }
+  }
+
+  private void locationResource(HttpExchange exchange, String[] path, byte[] body) throws IOException {
+    if (!exists(path[2], "location_%d", locations)) {
+      respond(exchange, 400, error("Location <" + path[2] + "> does not exist"));
+    } else if (path.length == 4 && path[3].equals("mapsets")) {
+      respond(exchange, 200, listing("process_results", "finished", names("mapset_%d", mapsets)));
+    } else if (path.length == 4 && path[3].equals("processing_async_export") && exchange.getRequestMethod().equals("POST")) {
+      respond(exchange, 200, submit(body).status());
+    } else if (path.length == 6 && path[3].equals("mapsets") && path[5].equals("processing")
+      && exchange.getRequestMethod().equals("POST")) {
+      // like actinia, persistent processing creates missing mapsets
+      respond(exchange, 200, submit(body).status());
+    } else if (path.length == 5 && path[3].equals("mapsets") && exchange.getRequestMethod().equals("DELETE")) {
+      deletedMapsets.add(path[4]);
+      respond(exchange, 200, write(generator -> {
+        generator.writeStringField("status", "finished");
+        generator.writeStringField("message", "Mapset <" + path[4] + "> successfully removed.");
+      }));
+    } else if (path.length != 6 || !path[3].equals("mapsets") || !exists(path[4], "mapset_%d", mapsets)) {
+      respond(exchange, 400, error("Mapset does not exist"));
+    } else if (path[5].equals("raster_layers")) {
+      List<String> names = names("raster_%05d", rasterLayers);
+      String query = exchange.getRequestURI().getQuery();
+      if (query != null && query.startsWith("pattern=")) {
+        Pattern pattern = RasterLayerIndex.compileGlob(query.substring("pattern=".length()));
+        names.removeIf(name -> !pattern.matcher(name).matches());
+      }
+      respond(exchange, 200, listing("process_results", "finished", names));
+    } else if (path[5].equals("strds")) {
+      respond(exchange, 200, listing("process_results", "finished", names("strds_%d", spaceTimeDatasets)));
+    } else {
+      respond(exchange, 404, error("Not found"));
+    }
+  }
+
+  private void download(HttpExchange exchange, String name) throws IOException {
+    byte[] content = resourceContent(name);
+    int offset = 0;
+    String etag = "\"" + name + "-" + content.length + "\"";
+    String range = exchange.getRequestHeaders().getFirst("Range");
+    String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+    if (range != null && range.startsWith("bytes=") && range.endsWith("-")) {
+      rangeRequests.incrementAndGet();
+    }
+    exchange.getResponseHeaders().set("ETag", etag);
+    // like HTTP servers, a range is only served if the resource did not change
+    if (range != null && range.startsWith("bytes=") && range.endsWith("-") && (ifRange == null || ifRange.equals(etag))) {
+      offset = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+      if (offset >= content.length) {
+        exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+        sendResponseHeaders(exchange, 416, -1);
+        return;
+      }
+      exchange.getResponseHeaders().set("Content-Range", "bytes " + offset + "-" + (content.length - 1) + "/" + content.length);
+    }
+    exchange.getResponseHeaders().set("Content-Type", "image/tiff");
+    sendResponseHeaders(exchange, offset > 0 ? 206 : 200, content.length - offset);
+    if (interruptDownloads.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+      exchange.getResponseBody().write(content, offset, (content.length - offset) / 2);
+      exchange.getResponseBody().flush();
+      // closing the exchange with missing bytes drops the connection
+      return;
+    }
+    exchange.getResponseBody().write(content, offset, content.length - offset);
+  }
+
+  private Job submit(byte[] body) throws IOException {
+    String resourceId = "resource_id-" + UUID.randomUUID();
+    Job job = new Job(resourceId, getUrl() + "resources/user/" + resourceId, JsonStreams.READER.readTree(body));
+    jobs.put(resourceId, job);
+    maxActiveJobs.accumulateAndGet((int) jobs.values().stream().filter(Job::isActive).count(), Math::max);
+    job.scheduleWebhooks();
+    return job;
+  }
+
+  private static boolean exists(String name, String format, int count) {
+    for (int i = 0; i < count; ++i) {
+      if (String.format(format, i).equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static List<String> names(String format, int count) {
+    List<String> names = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      names.add(String.format(format, i));
+    }
+    return names;
+  }
+
+  private List<String> moduleNames() {
+    List<String> names = new ArrayList<>(List.of("g.region", "g.mapsets", "g.copy", "r.mapcalc", "r.slope.aspect", failingModule));
+    names.addAll(names("r.stub_%d", Math.max(modules - names.size(), 0)));
+    names.removeAll(removedModules);
+    return names;
+  }
+
+  private static byte[] listing(String field, String status, List<String> names) throws IOException {
+    return write(generator -> {
+      generator.writeStringField("status", status);
+      generator.writeArrayFieldStart(field);
+      for (String name : names) {
+        generator.writeString(name);
+      }
+      generator.writeEndArray();
+    });
+  }
+
+  private byte[] moduleList() throws IOException {
+    List<String> names = moduleNames();
+    return write(generator -> {
+      generator.writeStringField("status", "success");
+      generator.writeArrayFieldStart("processes");
+      for (String name : names) {
+        generator.writeStartObject();
+        generator.writeStringField("id", name);
+        generator.writeStringField("description", "Stub module " + name);
+        generator.writeArrayFieldStart("categories");
+        generator.writeString("grass-module");
+        generator.writeEndArray();
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+    });
+  }
+
+  private static byte[] moduleDetails(String name) throws IOException {
+    return write(generator -> {
+      generator.writeStringField("id", name);
+      generator.writeStringField("description", "Stub module " + name);
+      generator.writeArrayFieldStart("parameters");
+      if (name.equals("g.region")) {
+        writeParameter(generator, "raster", "cell");
+        writeParameter(generator, "res", null);
+      } else if (name.equals("g.mapsets")) {
+        writeParameter(generator, "operation", null);
+        writeParameter(generator, "mapset", null);
+      } else if (name.equals("r.mapcalc")) {
+        // like in actinia, the map written by r.mapcalc is named in its expression, not in an output parameter
+        writeParameter(generator, "expression", null);
+      } else if (name.equals("g.copy")) {
+        writeParameter(generator, "raster", null);
+        writeParameter(generator, "vector", null);
+        writeParameter(generator, "strds", null);
+      } else {
+        writeParameter(generator, "elevation", "cell");
+        writeParameter(generator, "format", null);
+      }
+      generator.writeEndArray();
+      generator.writeArrayFieldStart("returns");
+      if (!name.startsWith("g.") && !name.equals("r.mapcalc")) {
+        writeParameter(generator, "slope", "cell");
+        writeParameter(generator, "aspect", "cell");
+      }
+      generator.writeEndArray();
+    });
+  }
+
+  private static void writeParameter(JsonGenerator generator, String name, String subtype) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("name", name);
+    generator.writeStringField("description", "Stub parameter " + name);
+    generator.writeBooleanField("optional", subtype == null);
+    generator.writeObjectFieldStart("schema");
+    generator.writeStringField("type", "string");
+    if (subtype != null) {
+      generator.writeStringField("subtype", subtype);
+    }
+    generator.writeEndObject();
+    generator.writeEndObject();
+  }
+
+  private static byte[] error(String message) throws IOException {
+    return write(generator -> {
+      generator.writeStringField("status", "error");
+      generator.writeStringField("message", message);
+    });
+  }
+
+  @FunctionalInterface
+  private interface Body {
+    void write(JsonGenerator generator) throws IOException;
+  }
+
+  private static byte[] write(Body body) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JsonGenerator generator = JsonStreams.FACTORY.createGenerator(out)) {
+      generator.writeStartObject();
+      body.write(generator);
+      generator.writeEndObject();
+    }
+    return out.toByteArray();
+  }
+
+  private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    sendResponseHeaders(exchange, status, body.length);
+    exchange.getResponseBody().write(body);
+  }
+
+  /**
+   * A submitted process chain whose state is derived from the time since it was accepted.
+   */
+  private class Job {
+
+    private final String resourceId;
+
+    private final String statusUrl;
+
+    private final JsonNode chain;
+
+    private final long accepted = System.nanoTime();
+
+    private final int steps;
+
+    private final boolean failing;
+
+    private final String updateWebhook;
+
+    private final String finishedWebhook;
+
+    private final List<String> resources = new ArrayList<>();
+
+    Job(String resourceId, String statusUrl, JsonNode chain) {
+      this.resourceId = resourceId;
+      this.statusUrl = statusUrl;
+      this.chain = chain;
+      int count = 0;
+      boolean fails = false;
+      if (chain != null && chain.has("list")) {
+        for (JsonNode step : chain.get("list")) {
+          ++count;
+          fails |= failingModule.equals(step.path("module").asText());
+          for (JsonNode output : step.path("outputs")) {
+            String format = output.path("export").path("format").asText("");
+            if (!format.isEmpty()) {
+              resources.add(output.path("value").asText() + (format.equals("GTiff") ? ".tif" : "." + format.toLowerCase()));
+            }
+          }
+        }
+      }
+      this.steps = Math.max(count, 1);
+      if (resources.isEmpty()) {
+        for (int i = 0; i < steps; ++i) {
+          resources.add("step_" + i + ".tif");
+        }
+      }
+      this.failing = fails;
+      this.updateWebhook = chain == null ? null : chain.path("webhooks").path("update").textValue();
+      this.finishedWebhook = chain == null ? null : chain.path("webhooks").path("finished").textValue();
+    }
+
+    void scheduleWebhooks() {
+      long step = Math.max(stepDuration.toNanos(), 1);
+      if (updateWebhook != null) {
+        webhookScheduler.schedule(() -> call(updateWebhook), step + step / 2, TimeUnit.NANOSECONDS);
+      }
+      if (finishedWebhook != null) {
+        webhookScheduler.schedule(() -> call(finishedWebhook), (steps + 1) * step + step / 2, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    private void call(String webhook) {
+      try {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(webhook))
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofByteArray(status()))
+          .build();
+        webhookClient.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    boolean isActive() {
+      return currentStep() <= steps;
+    }
+
+    private long currentStep() {
+      return (System.nanoTime() - accepted) / Math.max(stepDuration.toNanos(), 1);
+    }
+
+    byte[] status() throws IOException {
+      long step = currentStep();
+      String state;
+      if (step == 0) {
+        state = "accepted";
+      } else if (step <= steps) {
+        state = "running";
+      } else {
+        state = failing ? "error" : "finished";
+      }
+      long now = System.currentTimeMillis();
+      boolean finished = state.equals("finished");
+      return write(generator -> {
+        generator.writeStringField("resource_id", resourceId);
+        generator.writeStringField("status", state);
+        generator.writeStringField("message", state.equals("error") ? "AsyncProcessError" : "Stub job " + state);
+        generator.writeNumberField("accept_timestamp",
+          (now - (System.nanoTime() - accepted) / 1000000 - acceptedEarlier.toMillis()) / 1000.0);
+        generator.writeNumberField("timestamp", now / 1000.0);
+        generator.writeObjectFieldStart("progress");
+        generator.writeNumberField("step", Math.min(step, steps));
+        generator.writeNumberField("num_of_steps", steps);
+        generator.writeEndObject();
+        generator.writeObjectFieldStart("urls");
+        generator.writeArrayFieldStart("resources");
+        for (int i = 0; finished && i < resources.size(); ++i) {
+          generator.writeString(statusUrl + "/" + resources.get(i));
+        }
+        generator.writeEndArray();
+        generator.writeStringField("status", statusUrl);
+        generator.writeEndObject();
+      });
+    }
+
+  }
+
+}
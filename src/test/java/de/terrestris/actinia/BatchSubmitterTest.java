@@ -0,0 +1,86 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class BatchSubmitterTest {
+
+  private ActiniaStub stub;
+
+  private ActiniaClient client;
+
+  private ProcessWatcher watcher;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    stub = new ActiniaStub().setStepDuration(Duration.ofMillis(10));
+    client = stub.newClient();
+    watcher = ActiniaStub.newWatcher();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    watcher.close();
+    stub.close();
+  }
+
+  private ProcessJob job(String location, String module) {
+    return new ProcessJob(location, "mapset_0", List.of(client.getModule(module)), List.of(Map.of()));
+  }
+
+  @Test
+  public void testLimitsRunningJobs() {
+    BatchSubmitter submitter = new BatchSubmitter(client, watcher, 3);
+    List<JobResult> results = submitter.submitAll(IntStream.range(0, 12).mapToObj(i -> job("location_0", "g.region")))
+      .collect(Collectors.toList());
+    Assertions.assertEquals(12, results.size());
+    Assertions.assertTrue(results.stream().allMatch(JobResult::isSuccessful), results.toString());
+    Assertions.assertTrue(stub.getMaxActiveJobs() <= 3, "max active jobs was " + stub.getMaxActiveJobs());
+    Assertions.assertEquals(12, stub.getJobCount());
+  }
+
+  @Test
+  public void testReportsFailuresWithoutStopping() {
+    BatchSubmitter submitter = new BatchSubmitter(client, watcher, 2);
+    List<ProcessJob> jobs = List.of(job("location_0", "g.region"), job("location_0", "stub.fail"),
+      job("no_such_location", "g.region"), job("location_1", "g.region"));
+    List<JobResult> results = submitter.submitAll(jobs.stream()).collect(Collectors.toList());
+    Assertions.assertEquals(4, results.size());
+    Map<ProcessJob, JobResult> byJob = results.stream().collect(Collectors.toMap(JobResult::getJob, result -> result));
+    Assertions.assertTrue(byJob.get(jobs.get(0)).isSuccessful());
+    Assertions.assertEquals("error", byJob.get(jobs.get(1)).getStatus().getStatus());
+    Assertions.assertNotNull(byJob.get(jobs.get(2)).getFailure());
+    Assertions.assertTrue(byJob.get(jobs.get(3)).isSuccessful());
+  }
+
+  @Test
+  public void testRestoresLimitAfterFailingInput() {
+    BatchSubmitter submitter = new BatchSubmitter(client, watcher, 2);
+    // leaked permits would make a later submission block forever
+    Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      for (int i = 0; i < 3; ++i) {
+        Stream<ProcessJob> failing = Stream.of(job("location_0", "g.region"), null).map(job -> {
+          if (job == null) {
+            throw new IllegalStateException("Broken input");
+          }
+          return job;
+        });
+        Assertions.assertThrows(IllegalStateException.class, () -> submitter.submitAll(failing).count());
+      }
+      JobResult first = submitter.submit(job("location_0", "g.region")).join();
+      JobResult second = submitter.submit(job("location_0", "g.region")).join();
+      Assertions.assertTrue(first.isSuccessful() && second.isSuccessful());
+    });
+  }
+
+}
@@ -0,0 +1,21 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+public class CatalogCrawlerTest {
+
+  @Test
+  public void testCrawlingRespectsRequestLimit() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub(3, 4, 250).setLatency(Duration.ofMillis(20))) {
+      CatalogSnapshot snapshot = new CatalogCrawler(stub.newClient()).setMaxRequestsPerHost(4).crawl();
+      Assertions.assertTrue(snapshot.isComplete());
+      Assertions.assertEquals(250, snapshot.getRasterLayers("location_1", "mapset_2").size());
+      Assertions.assertTrue(stub.getMaxConcurrentRequests() <= 4, "max concurrent was " + stub.getMaxConcurrentRequests());
+    }
+  }
+
+}
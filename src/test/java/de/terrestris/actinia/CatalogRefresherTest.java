@@ -0,0 +1,62 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CatalogRefresherTest {
+
+  private static long count(List<CatalogChange> changes, CatalogChange.Kind kind, ResourceType type) {
+    return changes.stream().filter(change -> change.getKind() == kind && change.getType() == type).count();
+  }
+
+  @Test
+  public void testReportingChanges() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub(2, 2, 10)) {
+      ActiniaClient client = stub.clientBuilder().retryPolicy(RetryPolicy.none()).build();
+      CatalogRefresher refresher = new CatalogRefresher(new CatalogCrawler(client));
+      List<List<CatalogChange>> notifications = new ArrayList<>();
+      refresher.addListener((snapshot, changes) -> notifications.add(changes));
+
+      List<CatalogChange> initial = refresher.refresh();
+      Assertions.assertEquals(2, count(initial, CatalogChange.Kind.ADDED, ResourceType.LOCATIONS));
+      Assertions.assertEquals(4, count(initial, CatalogChange.Kind.ADDED, ResourceType.MAPSETS));
+      Assertions.assertEquals(40, count(initial, CatalogChange.Kind.ADDED, ResourceType.RASTER_LAYERS));
+      Assertions.assertEquals(8, count(initial, CatalogChange.Kind.ADDED, ResourceType.STRDS));
+
+      Assertions.assertTrue(refresher.refresh().isEmpty());
+      Assertions.assertEquals(1, notifications.size());
+
+      stub.setCatalogSize(1, 2, 12);
+      List<CatalogChange> changes = refresher.refresh();
+      Assertions.assertEquals(1, count(changes, CatalogChange.Kind.REMOVED, ResourceType.LOCATIONS));
+      Assertions.assertEquals(2, count(changes, CatalogChange.Kind.REMOVED, ResourceType.MAPSETS));
+      Assertions.assertEquals(20, count(changes, CatalogChange.Kind.REMOVED, ResourceType.RASTER_LAYERS));
+      Assertions.assertEquals(4, count(changes, CatalogChange.Kind.ADDED, ResourceType.RASTER_LAYERS));
+      Assertions.assertEquals("added raster_layers raster_00010 in location_0/mapset_0", changes.get(0).toString());
+      Assertions.assertEquals(2, notifications.size());
+      Assertions.assertEquals(12, refresher.getSnapshot().getRasterLayers("location_0", "mapset_1").size());
+    }
+  }
+
+  @Test
+  public void testFailuresAreNotReportedAsRemovals() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub(2, 2, 10)) {
+      ActiniaClient client = stub.clientBuilder().retryPolicy(RetryPolicy.none()).build();
+      CatalogRefresher refresher = new CatalogRefresher(new CatalogCrawler(client));
+      refresher.refresh();
+      stub.failNext(1);
+      Assertions.assertTrue(refresher.refresh().isEmpty());
+      Assertions.assertFalse(refresher.getSnapshot().isComplete());
+      Assertions.assertEquals(2, refresher.getSnapshot().getLocations().size());
+      stub.setLatency(Duration.ofMillis(5)).setErrorRate(0.3);
+      Assertions.assertTrue(refresher.refresh().isEmpty());
+      Assertions.assertEquals(10, refresher.getSnapshot().getRasterLayers("location_1", "mapset_1").size());
+    }
+  }
+
+}
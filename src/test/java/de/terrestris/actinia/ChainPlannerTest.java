@@ -0,0 +1,125 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ChainPlannerTest {
+
+  private ActiniaStub stub;
+
+  private ActiniaClient client;
+
+  private ProcessWatcher watcher;
+
+  private List<Module> modules;
+
+  private final List<Map<String, String>> values = List.of(
+    Map.of("raster", "elevation"),
+    Map.of("elevation", "elevation", "slope", "slope"),
+    Map.of("elevation", "elevation@PERMANENT", "aspect", "aspect"),
+    Map.of("elevation", "slope", "slope", "slope_of_slope"));
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    stub = new ActiniaStub().setStepDuration(Duration.ofMillis(10));
+    client = stub.newClient();
+    watcher = ActiniaStub.newWatcher();
+    modules = List.of(client.getModule("g.region"), client.getModule("r.slope.aspect"), client.getModule("r.stub_0"),
+      client.getModule("r.stub_1"));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    watcher.close();
+    stub.close();
+  }
+
+  @Test
+  public void testPlanningBranches() {
+    ChainPlanner planner = new ChainPlanner(client, watcher);
+    Assertions.assertEquals(List.of(List.of(0, 1, 3), List.of(0, 2)), planner.plan(modules, values));
+    // a setup step reading an output keeps the chain together
+    List<Map<String, String>> dependent = List.of(values.get(1), values.get(2), Map.of("raster", "slope"), values.get(3));
+    List<Module> reordered = List.of(modules.get(1), modules.get(2), modules.get(0), modules.get(3));
+    Assertions.assertEquals(List.of(List.of(0, 1, 2, 3)), planner.plan(reordered, dependent));
+  }
+
+  @Test
+  public void testPlanningKeepsStepsWithoutDeclaredOutputsTogether() {
+    ChainPlanner planner = new ChainPlanner(client, watcher);
+    // r.mapcalc writes the map named in its expression, which the branch mapset would take away
+    List<Module> withMapcalc = List.of(modules.get(0), modules.get(1), client.getModule("r.mapcalc"), modules.get(2));
+    List<Map<String, String>> mapcalcValues = List.of(values.get(0), values.get(1), Map.of("expression", "ratio = elevation / 2"),
+      values.get(2));
+    Assertions.assertEquals(List.of(List.of(0, 1, 2, 3)), planner.plan(withMapcalc, mapcalcValues));
+    // configured setup modules are repeated in every branch
+    planner.setSetupModules(Set.of("g.region", "r.mapcalc"));
+    Assertions.assertEquals(List.of(List.of(0, 1), List.of(0, 2, 3)), planner.plan(withMapcalc, mapcalcValues));
+  }
+
+  @Test
+  public void testPlanningNeedsRegion() {
+    ChainPlanner planner = new ChainPlanner(client, watcher);
+    // branch mapsets do not inherit the region of the target mapset
+    Assertions.assertEquals(List.of(List.of(0, 1)), planner.plan(modules.subList(1, 3), values.subList(1, 3)));
+    List<Module> lateRegion = List.of(modules.get(1), modules.get(0), modules.get(2));
+    Assertions.assertEquals(List.of(List.of(0, 1, 2)), planner.plan(lateRegion, List.of(values.get(1), values.get(0), values.get(2))));
+  }
+
+  @Test
+  public void testRunningUnsplitWithoutCopyModule() throws IOException {
+    try (ActiniaStub limited = new ActiniaStub().setStepDuration(Duration.ofMillis(10)).removeModule("g.copy")) {
+      ActiniaClient limitedClient = limited.newClient();
+      List<Module> limitedModules = List.of(limitedClient.getModule("g.region"), limitedClient.getModule("r.slope.aspect"),
+        limitedClient.getModule("r.stub_0"));
+      List<JobResult> results = new ChainPlanner(limitedClient, watcher).run("location_0", "mapset_0", limitedModules,
+        values.subList(0, 3));
+      Assertions.assertEquals(1, results.size());
+      Assertions.assertEquals("mapset_0", results.get(0).getJob().getMapset());
+      Assertions.assertTrue(limited.getDeletedMapsets().isEmpty());
+    }
+  }
+
+  @Test
+  public void testRunningBranches() {
+    List<JobResult> results = new ChainPlanner(client, watcher).run("location_0", "mapset_0", modules, values);
+    Assertions.assertEquals(3, results.size());
+    Assertions.assertTrue(results.stream().allMatch(JobResult::isSuccessful), results.toString());
+    String first = results.get(0).getJob().getMapset();
+    String second = results.get(1).getJob().getMapset();
+    Assertions.assertTrue(first.matches("mapset_0_[0-9a-f]{16}_branch_0"), first);
+    Assertions.assertEquals(first.replace("_branch_0", "_branch_1"), second);
+    Assertions.assertEquals("g.mapsets", results.get(0).getJob().getModules().get(0).getName());
+    Assertions.assertEquals(4, results.get(0).getJob().getModules().size());
+    ProcessJob join = results.get(2).getJob();
+    Assertions.assertEquals("mapset_0", join.getMapset());
+    Assertions.assertEquals(Map.of("raster", "slope@" + first + ",slope,slope_of_slope@" + first + ",slope_of_slope,"
+      + "aspect@" + second + ",aspect"), join.getParameters().get(0));
+    Assertions.assertEquals(3, stub.getJobCount());
+    Assertions.assertEquals(Set.of(first, second), Set.copyOf(stub.getDeletedMapsets()));
+
+    // a rerun uses new branch mapsets
+    List<JobResult> rerun = new ChainPlanner(client, watcher).run("location_0", "mapset_0", modules, values);
+    Assertions.assertNotEquals(first, rerun.get(0).getJob().getMapset());
+  }
+
+  @Test
+  public void testDeletingBranchesOfFailedRuns() {
+    List<Module> failing = List.of(modules.get(0), modules.get(1), client.getModule("stub.fail"));
+    List<Map<String, String>> failingValues = List.of(values.get(0), values.get(1), Map.of("elevation", "elevation", "slope", "other"));
+    List<JobResult> results = new ChainPlanner(client, watcher).run("location_0", "mapset_0", failing, failingValues);
+    Assertions.assertEquals(2, results.size());
+    Assertions.assertFalse(results.get(1).isSuccessful());
+    Assertions.assertEquals(2, stub.getDeletedMapsets().size());
+    Assertions.assertEquals(2, stub.getJobCount(), "the outputs must not be copied");
+  }
+
+}
@@ -0,0 +1,65 @@
+package de.terrestris.actinia;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+public class ClientMetricsTest {
+
+  @Test
+  public void testHistogramPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; ++i) {
+      histogram.record(Duration.ofMillis(i).toNanos());
+    }
+    Assertions.assertEquals(1000, histogram.getCount());
+    Assertions.assertEquals(Duration.ofMillis(1000), histogram.getMax());
+    long median = histogram.getPercentile(50).toMillis();
+    Assertions.assertTrue(median >= 500 && median <= 563, "median was " + median);
+    long p99 = histogram.getPercentile(99).toMillis();
+    Assertions.assertTrue(p99 >= 990 && p99 <= 1000, "p99 was " + p99);
+  }
+
+  @Test
+  public void testRecordingRequests() throws IOException {
+    ClientMetrics metrics = new ClientMetrics();
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    try (ActiniaStub stub = new ActiniaStub()) {
+      ActiniaClient client = stub.clientBuilder()
+        .listener(metrics)
+        .listener(new MicrometerListener(registry))
+        .build();
+      stub.failNext(1);
+      client.getRasterLayers("location_0", "mapset_1");
+      stub.setErrorRate(1);
+      Assertions.assertThrows(ActiniaException.class, () -> client.getLocations());
+    }
+    ClientMetrics.EndpointMetrics layers = metrics.get(ResourceType.RASTER_LAYERS);
+    Assertions.assertEquals(1, layers.getRequests());
+    Assertions.assertEquals(0, layers.getFailures());
+    Assertions.assertEquals(1, layers.getRetries());
+    Assertions.assertEquals(0, layers.getInFlight());
+    Assertions.assertTrue(layers.getBytes() > 100);
+    Assertions.assertEquals(1, layers.getParseTime().getCount());
+    ClientMetrics.EndpointMetrics locations = metrics.get(ResourceType.LOCATIONS);
+    Assertions.assertEquals(1, locations.getFailures());
+    Assertions.assertEquals(2, locations.getRetries());
+    Assertions.assertEquals(1, registry.get("actinia.client.requests").tag("type", "raster_layers")
+      .tag("outcome", "success").timer().count());
+    Assertions.assertEquals(2, registry.get("actinia.client.retries").tag("type", "locations").counter().count());
+  }
+
+  @Test
+  public void testSharingActiveGauge() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MicrometerListener first = new MicrometerListener(registry);
+    MicrometerListener second = new MicrometerListener(registry);
+    first.requestStarted(ResourceType.MAPSETS);
+    second.requestStarted(ResourceType.MAPSETS);
+    Assertions.assertEquals(2, registry.get("actinia.client.requests.active").tag("type", "mapsets").gauge().value());
+  }
+
+}
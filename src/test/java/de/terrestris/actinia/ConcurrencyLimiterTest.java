@@ -0,0 +1,53 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrencyLimiterTest {
+
+  @Test
+  public void testLimitsRunningTasks() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(2);
+    AtomicInteger started = new AtomicInteger();
+    List<CompletableFuture<Integer>> pending = new ArrayList<>();
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 5; ++i) {
+      CompletableFuture<Integer> task = new CompletableFuture<>();
+      pending.add(task);
+      results.add(limiter.submit(() -> {
+        started.incrementAndGet();
+        return task;
+      }));
+    }
+    Assertions.assertEquals(2, started.get());
+    pending.get(0).complete(0);
+    Assertions.assertEquals(3, started.get());
+    for (int i = 1; i < 5; ++i) {
+      pending.get(i).complete(i);
+    }
+    Assertions.assertEquals(5, started.get());
+    for (int i = 0; i < 5; ++i) {
+      Assertions.assertEquals(i, results.get(i).join());
+    }
+  }
+
+  @Test
+  public void testSynchronousTasksDoNotRecurse() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1);
+    CompletableFuture<Integer> blocker = new CompletableFuture<>();
+    limiter.submit(() -> blocker);
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 100000; ++i) {
+      int value = i;
+      results.add(limiter.submit(() -> CompletableFuture.completedFuture(value)));
+    }
+    blocker.complete(-1);
+    Assertions.assertEquals(99999, results.get(99999).join());
+  }
+
+}
@@ -0,0 +1,130 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+public class DownloadTest {
+
+  private ActiniaStub stub;
+
+  private ActiniaClient client;
+
+  private ProcessWatcher watcher;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    stub = new ActiniaStub().setStepDuration(Duration.ofMillis(10));
+    client = stub.newClient();
+    watcher = ActiniaStub.newWatcher();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    watcher.close();
+    stub.close();
+  }
+
+  /**
+   * Run a single step process and wait until it finished.
+   */
+  private ProcessStatus runFinished() {
+    return watcher.watch(client.runProcess("location_0", "mapset_0", List.of(client.getModule("g.region")),
+      List.of(Map.of("raster", "elevation")))).join();
+  }
+
+  @Test
+  public void testDownloadingResources(@TempDir Path directory) throws IOException {
+    stub.setResourceSize(256 * 1024);
+    List<Module> modules = List.of(client.getModule("g.region"), client.getModule("r.slope.aspect"));
+    List<Map<String, String>> values = List.of(Map.of("raster", "elevation"), Map.of("elevation", "elevation", "slope", "slope"));
+    ProcessStatus status = watcher.watch(client.runProcess("location_0", "mapset_0", modules, values)).join();
+    Assertions.assertEquals(2, status.getResources().size());
+    stub.interruptNextDownloads(1);
+    List<Path> files = client.downloadResources(status, directory);
+    Assertions.assertEquals(List.of(directory.resolve("step_0.tif"), directory.resolve("step_1.tif")), files);
+    for (Path file : files) {
+      Assertions.assertArrayEquals(stub.resourceContent(file.getFileName().toString()), Files.readAllBytes(file));
+    }
+    Assertions.assertEquals(1, stub.getRangeRequestCount());
+    try (Stream<Path> list = Files.list(directory)) {
+      Assertions.assertEquals(2, list.count(), "part files must be removed");
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Assertions.assertEquals(256 * 1024, client.downloadResource(status.getResources().get(0), Channels.newChannel(out)));
+    Assertions.assertArrayEquals(stub.resourceContent("step_0.tif"), out.toByteArray());
+  }
+
+  @Test
+  public void testDownloadingDoesNotResumeForeignFiles(@TempDir Path directory) throws IOException {
+    stub.setResourceSize(1024);
+    ProcessStatus status = runFinished();
+    byte[] content = stub.resourceContent("step_0.tif");
+    String resource = status.getResources().get(0);
+
+    // a file of an earlier process with the same name, larger than the resource
+    Path target = directory.resolve("step_0.tif");
+    Files.write(target, new byte[4096]);
+    Assertions.assertArrayEquals(content, Files.readAllBytes(client.downloadResource(resource, target)));
+
+    // a part file without validator was not written by the client
+    Files.write(directory.resolve("step_0.tif.part"), new byte[100]);
+    Assertions.assertArrayEquals(content, Files.readAllBytes(client.downloadResource(resource, target)));
+    Assertions.assertEquals(0, stub.getRangeRequestCount());
+
+    // a part file of a resource that changed since
+    Files.write(directory.resolve("step_0.tif.part"), new byte[100]);
+    Files.writeString(directory.resolve("step_0.tif.part.validator"), "\"step_0.tif-512\"");
+    Assertions.assertArrayEquals(content, Files.readAllBytes(client.downloadResource(resource, target)));
+    Assertions.assertEquals(1, stub.getRangeRequestCount());
+
+    // a part file this client wrote
+    Files.write(directory.resolve("step_0.tif.part"), Arrays.copyOf(content, 100));
+    Files.writeString(directory.resolve("step_0.tif.part.validator"), "\"step_0.tif-1024\"");
+    Assertions.assertArrayEquals(content, Files.readAllBytes(client.downloadResource(resource, target)));
+    Assertions.assertEquals(2, stub.getRangeRequestCount());
+    Assertions.assertFalse(Files.exists(directory.resolve("step_0.tif.part")));
+    Assertions.assertFalse(Files.exists(directory.resolve("step_0.tif.part.validator")));
+  }
+
+  @Test
+  public void testDownloadingSameTargetConcurrently(@TempDir Path directory) throws IOException {
+    stub.setResourceSize(1024);
+    String resource = runFinished().getResources().get(0);
+    Path target = directory.resolve("step_0.tif");
+    stub.setLatency(Duration.ofMillis(200));
+    CompletableFuture<Path> first = client.downloadResourceAsync(resource, target);
+    // a second download would share the part file
+    CompletionException e = Assertions.assertThrows(CompletionException.class, () -> client.downloadResourceAsync(resource, target).join());
+    Assertions.assertInstanceOf(ActiniaException.class, e.getCause());
+    Assertions.assertArrayEquals(stub.resourceContent("step_0.tif"), Files.readAllBytes(first.join()));
+    stub.setLatency(Duration.ZERO);
+    Assertions.assertEquals(target, client.downloadResource(resource, target));
+  }
+
+  @Test
+  public void testDownloadingRejectsCollidingNames(@TempDir Path directory) {
+    Module module = client.getModule("r.slope.aspect");
+    Map<String, String> values = Map.of("elevation", "elevation", "slope", "slope");
+    ProcessStatus status = watcher.watch(client.runEphemeralProcess("location_0", List.of(module, module), List.of(values, values),
+      List.of(Map.of("slope", Export.GEOTIFF), Map.of("slope", Export.GEOTIFF)))).join();
+    Assertions.assertThrows(ActiniaException.class, () -> client.downloadResources(status, directory));
+  }
+
+}
@@ -0,0 +1,33 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+public class ExportTest {
+
+  @Test
+  public void testRunningEphemeralProcesses() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub().setStepDuration(Duration.ofMillis(10));
+         ProcessWatcher watcher = ActiniaStub.newWatcher()) {
+      ActiniaClient client = stub.newClient();
+      List<Module> modules = List.of(client.getModule("g.region"), client.getModule("r.slope.aspect"));
+      List<Map<String, String>> values = List.of(Map.of("raster", "elevation"),
+        Map.of("elevation", "elevation", "slope", "slope", "aspect", "aspect"));
+      List<Map<String, Export>> exports = Export.defaults(modules, values);
+      Assertions.assertEquals(List.of(Map.of(), Map.of("slope", Export.GEOTIFF, "aspect", Export.GEOTIFF)), exports);
+      ProcessStatus first = client.runEphemeralProcess("location_0", modules, values, exports);
+      ProcessStatus second = client.runEphemeralProcess("location_0", modules, values, List.of(Map.of(), Map.of("slope", Export.raster("COG"))));
+      Assertions.assertNull(first.getMapset());
+      watcher.watch(first).join();
+      watcher.watch(second).join();
+      Assertions.assertEquals(List.of(first.getUrl() + "/slope.tif", first.getUrl() + "/aspect.tif"), first.getResources());
+      Assertions.assertEquals(List.of(second.getUrl() + "/slope.cog"), second.getResources());
+    }
+  }
+
+}
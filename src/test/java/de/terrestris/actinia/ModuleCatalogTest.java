@@ -0,0 +1,105 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class ModuleCatalogTest {
+
+  private ActiniaStub stub;
+
+  private ActiniaClient client;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    stub = new ActiniaStub();
+    client = stub.newClient();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    stub.close();
+  }
+
+  private static List<String> describe(List<Parameter> parameters) {
+    return parameters.stream()
+      .map(param -> param.getName() + "|" + param.getDescription() + "|" + param.isOptional() + "|" + param.getSchema())
+      .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testExportImportRoundTrip(@TempDir Path directory) {
+    Path file = directory.resolve("modules.json.gz");
+    client.getModule("g.region").getInputParameters();
+    client.getModule("r.slope.aspect").getInputParameters();
+    client.exportModuleCatalog(file);
+
+    ActiniaClient imported = stub.newClient();
+    Assertions.assertTrue(imported.importModuleCatalog(file));
+    int requests = stub.getRequestCount();
+    List<Module> modules = imported.getModules();
+    Assertions.assertEquals(client.getModules().stream().map(Module::getName).collect(Collectors.toList()),
+      modules.stream().map(Module::getName).collect(Collectors.toList()));
+    for (String name : List.of("g.region", "r.slope.aspect")) {
+      Module original = client.getModule(name);
+      Module module = imported.getModule(name);
+      Assertions.assertEquals(original.getDescription(), module.getDescription());
+      Assertions.assertEquals(describe(original.getInputParameters()), describe(module.getInputParameters()));
+      Assertions.assertEquals(describe(original.getOutputParameters()), describe(module.getOutputParameters()));
+    }
+    Assertions.assertEquals(requests, stub.getRequestCount(), "the imported catalog must not be fetched again");
+
+    Assertions.assertFalse(new ActiniaClient("http://localhost:1/", "user", "password").importModuleCatalog(file));
+    Assertions.assertFalse(stub.newClient().importModuleCatalog(directory.resolve("missing.json.gz")));
+  }
+
+  @Test
+  public void testRefreshingCatalog(@TempDir Path directory) {
+    Path file = directory.resolve("modules.json.gz");
+    client.getModule("r.slope.aspect").getInputParameters();
+    client.exportModuleCatalog(file);
+    Assertions.assertFalse(client.refreshModuleCatalogAsync(file).join());
+
+    stub.setModules(25);
+    ActiniaClient refreshed = stub.newClient();
+    Assertions.assertTrue(refreshed.importModuleCatalog(file));
+    Assertions.assertTrue(refreshed.refreshModuleCatalogAsync(file).join());
+    Assertions.assertEquals(25, refreshed.getModules().size());
+    Assertions.assertTrue(refreshed.getModule("r.slope.aspect").hasDetails());
+
+    ActiniaClient restarted = stub.newClient();
+    Assertions.assertTrue(restarted.importModuleCatalog(file));
+    Assertions.assertEquals(25, restarted.getModules().size());
+  }
+
+  @Test
+  public void testReadingModuleWithoutDescription(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("modules.json.gz");
+    new ModuleCatalog(Map.of("r.stub", new Module("r.stub", null, client)), null, null).write(file, stub.getUrl());
+    ModuleCatalog catalog = ModuleCatalog.read(file, stub.getUrl(), client);
+    Assertions.assertNull(catalog.getModules().get("r.stub").getDescription());
+  }
+
+  @Test
+  public void testRefreshingUnchangedCatalogInstallsIt(@TempDir Path directory) {
+    Path file = directory.resolve("modules.json.gz");
+    client.getModule("r.slope.aspect").getInputParameters();
+    client.exportModuleCatalog(file);
+
+    ActiniaClient started = stub.newClient();
+    Assertions.assertFalse(started.refreshModuleCatalogAsync(file).join());
+    int requests = stub.getRequestCount();
+    Assertions.assertEquals(client.getModules().size(), started.getModules().size());
+    Assertions.assertTrue(started.getModule("r.slope.aspect").hasDetails());
+    Assertions.assertEquals(requests, stub.getRequestCount(), "the stored catalog must be used");
+  }
+
+}
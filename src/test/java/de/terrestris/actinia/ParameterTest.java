@@ -0,0 +1,62 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ParameterTest {
+
+  private static Parameter parameter(String json) throws JsonProcessingException {
+    return new Parameter(JsonStreams.READER.readTree(json));
+  }
+
+  @Test
+  public void testTypedSchema() throws JsonProcessingException {
+    Parameter format = parameter("{\"name\": \"format\", \"description\": \"Format for reporting the slope\", "
+      + "\"optional\": true, \"default\": \"degrees\", \"schema\": {\"type\": \"string\", \"enum\": [\"degrees\", \"percent\"]}}");
+    Assertions.assertEquals("string", format.getType());
+    Assertions.assertEquals(List.of("degrees", "percent"), format.getParameterSchema().getEnumValues());
+    Assertions.assertFalse(format.getParameterSchema().isMultiple());
+    Assertions.assertNull(format.getParameterSchema().getMinimum());
+    Assertions.assertEquals("{\"type\":\"string\",\"enum\":[\"degrees\",\"percent\"]}", format.getSchema());
+
+    Parameter nprocs = parameter("{\"name\": \"nprocs\", \"description\": \"Number of threads\", \"optional\": true, "
+      + "\"schema\": {\"type\": \"integer\", \"minimum\": 1, \"maximum\": 64}}");
+    Assertions.assertEquals(1.0, nprocs.getParameterSchema().getMinimum());
+    Assertions.assertEquals(64.0, nprocs.getParameterSchema().getMaximum());
+
+    Parameter rasters = parameter("{\"name\": \"raster\", \"description\": \"Raster maps\", \"optional\": false, "
+      + "\"schema\": {\"type\": \"array\", \"items\": {\"type\": \"string\", \"subtype\": \"cell\"}}}");
+    Assertions.assertTrue(rasters.getParameterSchema().isMultiple());
+    Assertions.assertEquals("cell", rasters.getParameterSchema().getSubtype());
+  }
+
+  @Test
+  public void testSchemasAreShared() throws JsonProcessingException {
+    Parameter elevation = parameter("{\"name\": \"elevation\", \"description\": \"Elevation\", \"optional\": false, "
+      + "\"schema\": {\"type\": \"string\", \"subtype\": \"cell\"}}");
+    Parameter slope = parameter("{\"name\": \"slope\", \"description\": \"Slope\", \"optional\": true, "
+      + "\"schema\": {\"subtype\": \"cell\", \"type\": \"string\"}}");
+    Assertions.assertSame(elevation.getParameterSchema(), slope.getParameterSchema());
+  }
+
+  @Test
+  public void testSharedSchemasAreBounded() throws JsonProcessingException {
+    String raster = "{\"name\": \"input\", \"description\": \"\", \"optional\": false, "
+      + "\"schema\": {\"type\": \"string\", \"subtype\": \"raster\"}}";
+    ParameterSchema shared = parameter(raster).getParameterSchema();
+    for (int i = 0; i < 3000; ++i) {
+      Parameter parameter = parameter("{\"name\": \"p\", \"description\": \"\", \"optional\": true, "
+        + "\"schema\": {\"type\": \"integer\", \"maximum\": " + i + "}}");
+      Assertions.assertEquals(i, parameter.getParameterSchema().getMaximum());
+      if (i % 100 == 0) {
+        // a schema in frequent use stays shared while rarely used ones are dropped
+        Assertions.assertSame(shared, parameter(raster).getParameterSchema());
+      }
+    }
+    Assertions.assertTrue(ParameterSchema.getSharedCount() <= 1024, "shared " + ParameterSchema.getSharedCount());
+  }
+
+}
@@ -0,0 +1,77 @@
+package de.terrestris.actinia;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ProcessChainTemplateTest {
+
+  private final ActiniaClient client = new ActiniaClient("http://localhost/", "user", "password");
+
+  private static Parameter parameter(String name) throws JsonProcessingException {
+    return new Parameter(JsonStreams.READER.readTree("{\"name\": \"" + name + "\", \"description\": \"\", "
+      + "\"optional\": false, \"schema\": {\"type\": \"string\"}}"));
+  }
+
+  private Module module(String name, List<String> inputs, List<String> outputs) throws JsonProcessingException {
+    Module module = new Module(name, "", client);
+    List<Parameter> in = new ArrayList<>();
+    for (String input : inputs) {
+      in.add(parameter(input));
+    }
+    List<Parameter> out = new ArrayList<>();
+    for (String output : outputs) {
+      out.add(parameter(output));
+    }
+    module.setDetails(new ModuleDetails(in, out));
+    return module;
+  }
+
+  @Test
+  public void testMatchesCreateProcessChain() throws IOException {
+    List<Module> modules = List.of(module("g.region", List.of("raster", "res"), List.of()),
+      module("i.vi", List.of("red", "nir", "viname"), List.of("output")));
+    List<Map<String, String>> values = List.of(Map.of("raster", "lsat7_2000_50@landsat"),
+      Map.of("red", "lsat7_2000_30@landsat", "nir", "lsat7_2000_40@landsat", "viname", "ndvi", "output", "ndvi"));
+    ProcessChainTemplate template = ProcessChainTemplate.compile(modules,
+      List.of(Set.of("raster", "res"), Set.of("red", "nir", "viname", "output")));
+    JsonNode expected = client.createProcessChain(modules, values);
+    Assertions.assertEquals(expected, JsonStreams.READER.readTree(template.toJson(values)));
+    Webhooks webhooks = new Webhooks("http://localhost:8090/update", "http://localhost:8090/finished");
+    Assertions.assertEquals(client.createProcessChain(modules, values, webhooks),
+      JsonStreams.READER.readTree(template.toJson(values, webhooks)));
+  }
+
+  @Test
+  public void testWritesExports() throws IOException {
+    List<Module> modules = List.of(module("r.slope.aspect", List.of("elevation"), List.of("slope")));
+    ProcessChainTemplate template = ProcessChainTemplate.compile(modules, List.of(Set.of("elevation", "slope")));
+    JsonNode chain = JsonStreams.READER.readTree(template.toJson(List.of(Map.of("elevation", "elevation", "slope", "slope")),
+      List.of(Map.of("slope", Export.GEOTIFF)), null));
+    JsonNode step = chain.get("list").get(0);
+    Assertions.assertEquals(1, step.get("inputs").size());
+    Assertions.assertEquals("slope", step.get("outputs").get(0).get("value").asText());
+    Assertions.assertEquals("GTiff", step.get("outputs").get(0).get("export").get("format").asText());
+    Assertions.assertEquals("raster", step.get("outputs").get(0).get("export").get("type").asText());
+    Assertions.assertThrows(ActiniaException.class, () -> template.toJson(List.of(Map.of("elevation", "elevation")),
+      List.of(Map.of("slope", Export.GEOTIFF)), null));
+  }
+
+  @Test
+  public void testRejectsUnknownParameters() throws IOException {
+    List<Module> modules = List.of(module("r.slope.aspect", List.of("elevation"), List.of("slope")));
+    Assertions.assertThrows(ActiniaException.class,
+      () -> ProcessChainTemplate.compile(modules, List.of(Set.of("elevation", "aspect"))));
+    ProcessChainTemplate template = ProcessChainTemplate.compile(modules, List.of(Set.of("elevation")));
+    Assertions.assertThrows(ActiniaException.class,
+      () -> template.toJson(List.of(Map.of("elevation", "elevation", "slope", "slope"))));
+  }
+
+}
@@ -0,0 +1,70 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+public class ProcessWatcherTest {
+
+  private ActiniaStub stub;
+
+  private ActiniaClient client;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    stub = new ActiniaStub().setStepDuration(Duration.ofMinutes(1));
+    client = stub.newClient();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    stub.close();
+  }
+
+  /**
+   * Watch a process that stays accepted for the given time and count the status requests.
+   */
+  private int countPolls(Duration duration) throws InterruptedException {
+    ProcessStatus status = client.runProcess("location_0", "mapset_0",
+      List.of(client.getModule("g.region")), List.of(Map.of("raster", "elevation")));
+    int requests = stub.getRequestCount();
+    try (ProcessWatcher watcher = new ProcessWatcher().setInitialDelay(Duration.ofMillis(10))
+      .setMaximumDelay(Duration.ofSeconds(10)).setBackoffMultiplier(1)) {
+      watcher.watch(status);
+      Thread.sleep(duration.toMillis());
+    }
+    return stub.getRequestCount() - requests;
+  }
+
+  @Test
+  public void testWatchingProcesses() {
+    stub.setStepDuration(Duration.ofMillis(20));
+    List<Module> modules = List.of(client.getModule("g.region"), client.getModule("r.slope.aspect"));
+    List<Map<String, String>> values = List.of(Map.of("raster", "elevation"), Map.of("elevation", "elevation", "slope", "slope"));
+    try (ProcessWatcher watcher = ActiniaStub.newWatcher()) {
+      ProcessStatus status = watcher.watch(client.runProcess("location_0", "mapset_0", modules, values)).join();
+      Assertions.assertEquals("finished", status.getStatus());
+      Assertions.assertEquals(2, status.getNumberOfSteps());
+      ProcessStatus failed = watcher.watch(client.runProcess("location_0", "mapset_0",
+        List.of(client.getModule("stub.fail")), List.of(Map.of()))).join();
+      Assertions.assertEquals("error", failed.getStatus());
+    }
+    Assertions.assertEquals(2, stub.getJobCount());
+  }
+
+  @Test
+  public void testPollingLongRunningProcessesLessOften() throws InterruptedException {
+    int young = countPolls(Duration.ofSeconds(1));
+    stub.setAcceptedEarlier(Duration.ofHours(1));
+    int old = countPolls(Duration.ofSeconds(1));
+    Assertions.assertTrue(young >= 5, "young process was polled " + young + " times");
+    Assertions.assertTrue(old <= 2, "old process was polled " + old + " times");
+  }
+
+}
@@ -0,0 +1,78 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class RasterLayerIndexTest {
+
+  private static List<String> scenes() {
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 1000; ++i) {
+      names.add(String.format("S2A_MSIL1C_2023%04d_N0509_B%02d", i, i % 13));
+    }
+    names.add("elevation");
+    names.add("aspect");
+    names.add("élévation");
+    Collections.shuffle(names);
+    return names;
+  }
+
+  @Test
+  public void testLookup() {
+    List<String> names = scenes();
+    RasterLayerIndex index = RasterLayerIndex.of("sentinel", names);
+    List<String> sorted = new ArrayList<>(names);
+    Collections.sort(sorted);
+    Assertions.assertEquals(sorted, index.asList());
+    Assertions.assertEquals(sorted, index.stream().collect(Collectors.toList()));
+    for (int i = 0; i < sorted.size(); ++i) {
+      Assertions.assertEquals(sorted.get(i), index.get(i));
+      Assertions.assertEquals(i, index.indexOf(sorted.get(i)));
+    }
+    Assertions.assertEquals(Collections.binarySearch(sorted, "b"), index.indexOf("b"));
+    Assertions.assertEquals(Collections.binarySearch(sorted, "S2A_MSIL1C_20230500"), index.indexOf("S2A_MSIL1C_20230500"));
+    Assertions.assertEquals(-1, index.indexOf("A"));
+    Assertions.assertEquals(-sorted.size() - 1, index.indexOf("\uffff"));
+    int characters = sorted.stream().mapToInt(String::length).sum();
+    Assertions.assertTrue(index.getEncodedSize() < characters * 2 / 3, "encoded size was " + index.getEncodedSize());
+  }
+
+  @Test
+  public void testQueries() {
+    RasterLayerIndex index = RasterLayerIndex.of("sentinel", scenes());
+    Assertions.assertEquals(100, index.withPrefix("S2A_MSIL1C_202301").count());
+    Assertions.assertEquals(List.of("S2A_MSIL1C_20230012_N0509_B12", "S2A_MSIL1C_20230025_N0509_B12"),
+      index.glob("S2A_*_B12").limit(2).collect(Collectors.toList()));
+    Assertions.assertEquals(List.of("elevation"), index.glob("e?evation").collect(Collectors.toList()));
+    Assertions.assertEquals(List.of("aspect", "elevation"), index.glob("[ae]*").collect(Collectors.toList()));
+    Assertions.assertEquals(154, index.matching(Pattern.compile(".*_B0[12]")).count());
+    Assertions.assertEquals(List.of("S2A_MSIL1C_20230998_N0509_B10", "S2A_MSIL1C_20230999_N0509_B11", "aspect"),
+      index.page(998, 3));
+    Assertions.assertEquals("elevation@sentinel", index.resolve("elevation"));
+    Assertions.assertEquals("elevation@sentinel", index.resolve("elevation@sentinel"));
+    Assertions.assertNull(index.resolve("elevation@PERMANENT"));
+    Assertions.assertNull(index.resolve("slope"));
+  }
+
+  @Test
+  public void testFindingLayers() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub(1, 1, 500)) {
+      ActiniaClient client = stub.newClient();
+      Assertions.assertEquals(List.of("raster_00100", "raster_00200", "raster_00300", "raster_00400"),
+        client.findRasterLayers("location_0", "mapset_0", "raster_00[1-4]00"));
+      Assertions.assertEquals(1, stub.getRequestCount());
+      RasterLayerIndex index = client.getRasterLayerIndex("location_0", "mapset_0");
+      Assertions.assertEquals(500, index.size());
+      Assertions.assertEquals(10, client.findRasterLayers("location_0", "mapset_0", "raster_0012?").size());
+      Assertions.assertEquals(2, stub.getRequestCount());
+    }
+  }
+
+}
@@ -0,0 +1,92 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+public class ResilienceTest {
+
+  @Test
+  public void testCircuitBreakerOpensAndRecovers() throws InterruptedException {
+    CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMillis(50));
+    Assertions.assertTrue(breaker.allowRequest());
+    breaker.onFailure();
+    Assertions.assertTrue(breaker.allowRequest());
+    breaker.onFailure();
+    Assertions.assertTrue(breaker.isOpen());
+    Assertions.assertFalse(breaker.allowRequest());
+    Thread.sleep(60);
+    Assertions.assertTrue(breaker.allowRequest());
+    Assertions.assertFalse(breaker.allowRequest());
+    breaker.onSuccess();
+    Assertions.assertFalse(breaker.isOpen());
+    Assertions.assertTrue(breaker.allowRequest());
+  }
+
+  @Test
+  public void testRetryingTransientFailures() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub()) {
+      ActiniaClient client = stub.newClient();
+      stub.failNext(2);
+      Assertions.assertEquals(2, client.getLocations().size());
+      Assertions.assertEquals(3, stub.getRequestCount());
+    }
+  }
+
+  @Test
+  public void testCircuitBreakerCountsServerErrors() throws IOException {
+    try (ActiniaStub stub = new ActiniaStub()) {
+      stub.setErrorStatus(500).failNext(5);
+      ActiniaClient client = stub.clientBuilder()
+        .circuitBreaker(new CircuitBreaker(2, Duration.ofMinutes(1)))
+        .build();
+      // other server errors are not retried, but they still open the circuit
+      Assertions.assertThrows(ActiniaException.class, client::getLocations);
+      Assertions.assertEquals(1, stub.getRequestCount());
+      Assertions.assertThrows(ActiniaException.class, client::getLocations);
+      Assertions.assertEquals(2, stub.getRequestCount());
+      ActiniaException e = Assertions.assertThrows(ActiniaException.class, client::getLocations);
+      Assertions.assertTrue(e.getMessage().contains("circuit breaker"), e.getMessage());
+      Assertions.assertEquals(2, stub.getRequestCount());
+    }
+  }
+
+  @Test
+  public void testCircuitBreakerCountsConnectionFailures() throws IOException {
+    String url;
+    try (ActiniaStub stub = new ActiniaStub()) {
+      url = stub.getUrl();
+    }
+    CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMinutes(1));
+    ActiniaClient client = ActiniaClient.builder(url)
+      .credentials("user", "password")
+      .retryPolicy(RetryPolicy.none())
+      .circuitBreaker(breaker)
+      .build();
+    Assertions.assertThrows(ActiniaException.class, client::getLocations);
+    Assertions.assertFalse(breaker.isOpen());
+    Assertions.assertThrows(ActiniaException.class, client::getLocations);
+    Assertions.assertTrue(breaker.isOpen());
+  }
+
+  @Test
+  public void testRateLimiterAllowsBurstThenDelays() {
+    RateLimiter limiter = new RateLimiter(10, 2);
+    Assertions.assertEquals(0, limiter.reserve());
+    Assertions.assertEquals(0, limiter.reserve());
+    long delay = limiter.reserve();
+    Assertions.assertTrue(delay > 50 && delay <= 100, "delay was " + delay);
+  }
+
+  @Test
+  public void testRetryBackoffIsBounded() {
+    RetryPolicy policy = RetryPolicy.defaults().withBackoff(Duration.ofMillis(100), Duration.ofMillis(300));
+    for (int i = 0; i < 100; ++i) {
+      Assertions.assertTrue(policy.backoffMillis(1) <= 100);
+      Assertions.assertTrue(policy.backoffMillis(5) <= 300);
+    }
+  }
+
+}
@@ -0,0 +1,46 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+public class ResourceCacheTest {
+
+  @Test
+  public void testExpiry() {
+    ResourceCache cache = new ResourceCache(CachePolicy.defaults().withTtl(ResourceType.MAPSETS, Duration.ZERO));
+    cache.put(ResourceType.MAPSETS, "loc", null, "mapsets", cache.getGeneration());
+    cache.put(ResourceType.LOCATIONS, null, null, "locations", cache.getGeneration());
+    Assertions.assertNull(cache.get(ResourceType.MAPSETS, "loc", null));
+    Assertions.assertEquals("locations", cache.get(ResourceType.LOCATIONS, null, null));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEviction() {
+    ResourceCache cache = new ResourceCache(CachePolicy.defaults().withMaximumSize(2));
+    cache.put(ResourceType.RASTER_LAYERS, "loc", "a", "a", cache.getGeneration());
+    cache.put(ResourceType.RASTER_LAYERS, "loc", "b", "b", cache.getGeneration());
+    cache.get(ResourceType.RASTER_LAYERS, "loc", "a");
+    cache.put(ResourceType.RASTER_LAYERS, "loc", "c", "c", cache.getGeneration());
+    Assertions.assertEquals("a", cache.get(ResourceType.RASTER_LAYERS, "loc", "a"));
+    Assertions.assertNull(cache.get(ResourceType.RASTER_LAYERS, "loc", "b"));
+    Assertions.assertEquals("c", cache.get(ResourceType.RASTER_LAYERS, "loc", "c"));
+  }
+
+  @Test
+  public void testInvalidation() {
+    ResourceCache cache = new ResourceCache(CachePolicy.defaults());
+    long generation = cache.getGeneration();
+    cache.put(ResourceType.MAPSETS, "loc", null, "mapsets", generation);
+    cache.put(ResourceType.RASTER_LAYERS, "loc", "a", "a", generation);
+    cache.put(ResourceType.RASTER_LAYERS, "loc", "b", "b", generation);
+    cache.invalidate("loc", "a");
+    Assertions.assertNull(cache.get(ResourceType.MAPSETS, "loc", null));
+    Assertions.assertNull(cache.get(ResourceType.RASTER_LAYERS, "loc", "a"));
+    Assertions.assertEquals("b", cache.get(ResourceType.RASTER_LAYERS, "loc", "b"));
+    cache.put(ResourceType.RASTER_LAYERS, "loc", "a", "stale", generation);
+    Assertions.assertNull(cache.get(ResourceType.RASTER_LAYERS, "loc", "a"));
+  }
+
+}
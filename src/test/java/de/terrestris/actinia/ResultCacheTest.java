@@ -0,0 +1,91 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+public class ResultCacheTest {
+
+  private static final String CHAIN = "{\"list\": [{\"module\": \"g.region\", \"id\": \"g.region\", "
+    + "\"inputs\": [{\"param\": \"raster\", \"value\": \"elevation\"}]}], \"version\": \"1\"}";
+
+  private static final String REORDERED = "{\"version\": \"1\", \"webhooks\": {\"finished\": \"http://localhost/finished\"}, "
+    + "\"list\": [{\"inputs\": [{\"value\": \"elevation\", \"param\": \"raster\"}], \"id\": \"g.region\", \"module\": \"g.region\"}]}";
+
+  private static String key(String location, String chain) {
+    return ResultCache.key("http://localhost/", location, "mapset", chain.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testKeyIsCanonical() {
+    Assertions.assertEquals(key("location", CHAIN), key("location", REORDERED));
+    Assertions.assertNotEquals(key("location", CHAIN), key("other", CHAIN));
+    Assertions.assertNotEquals(key("location", CHAIN), key("location", CHAIN.replace("elevation", "dem")));
+  }
+
+  @Test
+  public void testReusingResults(@TempDir Path directory) throws IOException {
+    ResultCache cache = new ResultCache(directory, Duration.ofHours(1));
+    try (ActiniaStub stub = new ActiniaStub().setStepDuration(Duration.ofMillis(10));
+         ProcessWatcher watcher = ActiniaStub.newWatcher()) {
+      ActiniaClient client = stub.clientBuilder().resultCache(cache).build();
+      List<Module> modules = List.of(client.getModule("g.region"), client.getModule("r.slope.aspect"));
+      List<Map<String, String>> values = List.of(Map.of("raster", "elevation"), Map.of("elevation", "elevation", "slope", "slope"));
+      ProcessStatus first = watcher.watch(client.runProcess("location_0", "mapset_0", modules, values)).join();
+      Assertions.assertEquals("finished", first.getStatus());
+      Assertions.assertFalse(first.isCached());
+      Assertions.assertEquals(1, cache.size());
+
+      // a new client sharing the directory reuses the result
+      ActiniaClient other = stub.clientBuilder().resultCache(new ResultCache(directory, Duration.ofHours(1))).build();
+      ProcessStatus second = other.runProcess("location_0", "mapset_0", modules, values);
+      Assertions.assertTrue(second.isCached());
+      Assertions.assertEquals("finished", second.getStatus());
+      Assertions.assertEquals(first.getUrl(), second.getUrl());
+      Assertions.assertEquals(first.getResources(), second.getResources());
+      Assertions.assertEquals(1, stub.getJobCount());
+
+      ProcessStatus elsewhere = client.runProcess("location_0", "mapset_1", modules, values);
+      Assertions.assertFalse(elsewhere.isCached());
+      Assertions.assertEquals(2, stub.getJobCount());
+    }
+  }
+
+  @Test
+  public void testExpiringResults(@TempDir Path directory) throws IOException {
+    ResultCache cache = new ResultCache(directory, Duration.ZERO);
+    try (ActiniaStub stub = new ActiniaStub().setStepDuration(Duration.ofMillis(10));
+         ProcessWatcher watcher = ActiniaStub.newWatcher()) {
+      ActiniaClient client = stub.clientBuilder().resultCache(cache).build();
+      List<Module> modules = List.of(client.getModule("g.region"));
+      List<Map<String, String>> values = List.of(Map.of("raster", "elevation"));
+      watcher.watch(client.runProcess("location_0", "mapset_0", modules, values)).join();
+      Assertions.assertEquals(1, cache.size());
+      ProcessStatus second = client.runProcess("location_0", "mapset_0", modules, values);
+      Assertions.assertFalse(second.isCached());
+      Assertions.assertEquals(2, stub.getJobCount());
+      Assertions.assertEquals(0, cache.size(), "an expired result must be removed when it is looked up");
+      watcher.watch(second).join();
+      Assertions.assertEquals(1, cache.size());
+      Assertions.assertEquals(1, cache.evictExpired());
+      Assertions.assertEquals(0, cache.size());
+    }
+  }
+
+  @Test
+  public void testStoringRemovesExpiredResults(@TempDir Path directory) {
+    ProcessStatus status = new ProcessStatus("http://localhost/resources/user/resource_id-1", null);
+    new ResultCache(directory, Duration.ZERO).put(key("location", CHAIN), status);
+    ResultCache cache = new ResultCache(directory, Duration.ofHours(1));
+    cache.put(key("other", CHAIN), status);
+    Assertions.assertEquals(1, cache.size());
+  }
+
+}
@@ -0,0 +1,36 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+public class StatusUpdateTest {
+
+  private static final String STATUS = "{\"accept_datetime\": \"2018-05-02 13:34:04.370704\", "
+    + "\"accept_timestamp\": 1525268044.5, \"api_info\": {\"endpoint\": \"asyncpersistentresource\"}, "
+    + "\"process_log\": [{\"executable\": \"g.region\", \"parameter\": [\"raster=elevation\"], \"return_code\": 0, "
+    + "\"stdout\": \"\"}], \"process_results\": {}, \"progress\": {\"num_of_steps\": 3, \"step\": 2}, "
+    + "\"message\": \"Running executable r.slope.aspect\", \"resource_id\": \"resource_id-4846cbcc\", "
+    + "\"status\": \"running\", \"time_delta\": 1.5, \"timestamp\": 1525268046.0, "
+    + "\"urls\": {\"resources\": [\"https://actinia/resources/user/resource_id-4846cbcc/slope.tif\"], \"status\": \"https://actinia/resources/user/resource_id-4846cbcc\"}}";
+
+  @Test
+  public void testParsingStatus() throws IOException {
+    StatusUpdate update = StatusUpdate.parse(new ByteArrayInputStream(STATUS.getBytes(StandardCharsets.UTF_8)));
+    Assertions.assertEquals("running", update.getStatus());
+    Assertions.assertEquals("Running executable r.slope.aspect", update.getMessage());
+    Assertions.assertEquals("resource_id-4846cbcc", update.getResourceId());
+    Assertions.assertEquals("https://actinia/resources/user/resource_id-4846cbcc", update.getStatusUrl());
+    Assertions.assertEquals(List.of("https://actinia/resources/user/resource_id-4846cbcc/slope.tif"), update.getResources());
+    Assertions.assertEquals(2, update.getStep());
+    Assertions.assertEquals(3, update.getNumberOfSteps());
+    Assertions.assertEquals(Instant.ofEpochSecond(1525268044, 500000000), update.getAcceptTimestamp());
+    Assertions.assertEquals(Instant.ofEpochSecond(1525268046), update.getTimestamp());
+  }
+
+}
@@ -0,0 +1,82 @@
+package de.terrestris.actinia;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class WebhookReceiverTest {
+
+  private final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+  private ActiniaStub stub;
+
+  private ActiniaClient client;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    stub = new ActiniaStub().setStepDuration(Duration.ofMillis(20));
+    client = stub.newClient();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    stub.close();
+  }
+
+  @Test
+  public void testReceivingWebhooks() {
+    List<Module> modules = List.of(client.getModule("g.region"), client.getModule("r.slope.aspect"));
+    List<Map<String, String>> values = List.of(Map.of("raster", "elevation"), Map.of("elevation", "elevation", "slope", "slope"));
+    try (ProcessWatcher watcher = new ProcessWatcher().setInitialDelay(Duration.ofMinutes(1));
+         WebhookReceiver receiver = new WebhookReceiver(address, null, watcher)) {
+      ProcessStatus status = client.runProcess("location_0", "mapset_0", modules, values, receiver.getWebhooks());
+      int requests = stub.getRequestCount();
+      Assertions.assertEquals("finished", receiver.watch(status).orTimeout(5, TimeUnit.SECONDS).join().getStatus());
+      Assertions.assertEquals(2, status.getStep());
+      Assertions.assertEquals(requests, stub.getRequestCount(), "the status must not be polled");
+      Assertions.assertEquals(0, receiver.getWatchedCount());
+      Assertions.assertEquals(0, watcher.getWatchedCount());
+    }
+  }
+
+  @Test
+  public void testWebhookFallback() {
+    try (ProcessWatcher watcher = ActiniaStub.newWatcher();
+         WebhookReceiver receiver = new WebhookReceiver(address, null, watcher)) {
+      // submitted without webhooks, so only polling notices the end
+      ProcessStatus status = client.runProcess("location_0", "mapset_0", List.of(client.getModule("stub.fail")), List.of(Map.of()));
+      Assertions.assertEquals("error", receiver.watch(status).orTimeout(5, TimeUnit.SECONDS).join().getStatus());
+    }
+  }
+
+  @Test
+  public void testWebhookFallbackAlreadyClosed() {
+    ProcessWatcher watcher = new ProcessWatcher();
+    watcher.close();
+    try (WebhookReceiver receiver = new WebhookReceiver(address, null, watcher)) {
+      ProcessStatus status = client.runProcess("location_0", "mapset_0", List.of(client.getModule("g.region")), List.of(Map.of()));
+      CompletableFuture<ProcessStatus> future = receiver.watch(status);
+      Assertions.assertTrue(future.isCompletedExceptionally());
+      Assertions.assertEquals(0, receiver.getWatchedCount());
+    }
+  }
+
+  @Test
+  public void testWebhookReceiverNeedsPublicUrlOnWildcardAddress() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new WebhookReceiver(new InetSocketAddress(0), null, null));
+    try (WebhookReceiver receiver = new WebhookReceiver(new InetSocketAddress(0), "http://myhost:8090/", null)) {
+      Assertions.assertTrue(receiver.getWebhooks().getFinished().startsWith("http://myhost:8090/actinia-webhooks/"));
+    }
+  }
+
+}